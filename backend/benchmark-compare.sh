@@ -0,0 +1,32 @@
+#!/bin/sh
+# Imports the same generated file into a fresh stack built from each of two revisions and prints
+# what benchmark-import.py reports for both, e.g. ./benchmark-compare.sh 28dda5f HEAD 200000
+set -e
+
+if [ $# -lt 2 ]; then
+    echo "Usage: $0 <base_revision> <revision> [number_of_tickets]"
+    exit 1
+fi
+
+tickets=${3:-100000}
+backend=$(cd "$(dirname "$0")" && pwd)
+work=$(mktemp -d)
+trap 'rm -rf "$work"; git -C "$backend" worktree prune' EXIT
+
+python3 "$backend/generate-tickets.py" "$tickets" "$work/tickets.json"
+
+for revision in "$1" "$2"; do
+    tree="$work/$(git -C "$backend" rev-parse --short "$revision")"
+    git -C "$backend" worktree add --detach "$tree" "$revision" > /dev/null
+    cd "$tree/backend"
+    ./mvnw -q clean package -DskipTests
+    # a new project with its volumes removed afterwards, so both runs start from an empty database
+    docker compose -p ticketis-benchmark up --build -d
+    until curl -sf "http://localhost:8081/api/import?size=1" > /dev/null; do
+        sleep 2
+    done
+    echo "== $revision"
+    python3 "$backend/benchmark-import.py" "$work/tickets.json"
+    docker compose -p ticketis-benchmark down -v
+    cd "$backend"
+done
@@ -0,0 +1,69 @@
+import json
+import sys
+import time
+import uuid
+import urllib.request
+from pathlib import Path
+
+FINAL_STATUSES = {"SUCCESS", "PARTIAL_SUCCESS", "FAILED", "VALIDATION_FAILED"}
+POLL_INTERVAL_SECONDS = 0.5
+
+
+def upload(base_url, file_path):
+    """Upload import file as multipart/form-data, return parsed ImportResponse"""
+    boundary = uuid.uuid4().hex
+    content = Path(file_path).read_bytes()
+    body = (
+        f"--{boundary}\r\n"
+        f"Content-Disposition: form-data; name=\"file\"; filename=\"{Path(file_path).name}\"\r\n"
+        f"Content-Type: application/json\r\n\r\n"
+    ).encode() + content + f"\r\n--{boundary}--\r\n".encode()
+
+    request = urllib.request.Request(
+        f"{base_url}/api/import",
+        data=body,
+        headers={"Content-Type": f"multipart/form-data; boundary={boundary}"},
+        method="POST")
+    with urllib.request.urlopen(request) as response:
+        return json.load(response)
+
+
+def find_import(base_url, import_id):
+    """Find import history item on the latest imports page"""
+    with urllib.request.urlopen(f"{base_url}/api/import?size=20&sort=id,desc") as response:
+        page = json.load(response)
+    for item in page.get("content", []):
+        if item["id"] == import_id:
+            return item
+    return None
+
+
+def main():
+    """Main function"""
+    if len(sys.argv) < 2:
+        print(f"Usage: {sys.argv[0]} <import_file> [base_url]")
+        print(f"Example: {sys.argv[0]} sample-import-tickets.json http://localhost:8081")
+        sys.exit(1)
+
+    file_path = sys.argv[1]
+    base_url = sys.argv[2] if len(sys.argv) > 2 else "http://localhost:8081"
+
+    started = time.monotonic()
+    response = upload(base_url, file_path)
+    import_id = response["importHistoryId"]
+    print(f"Import {import_id} accepted (async: {response['async']})", file=sys.stderr)
+
+    item = find_import(base_url, import_id)
+    while item is None or item["importStatus"] not in FINAL_STATUSES:
+        time.sleep(POLL_INTERVAL_SECONDS)
+        item = find_import(base_url, import_id)
+    elapsed = time.monotonic() - started
+
+    processed = item.get("processedRecords") or 0
+    print(f"Status: {item['importStatus']}")
+    print(f"Processed {processed:,} of {item.get('totalRecords') or 0:,} records in {elapsed:.2f} s")
+    print(f"Throughput: {processed / elapsed:,.0f} tickets/s")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,72 @@
+package com.ticketis.app.config;
+
+import com.ticketis.app.model.IdSequences;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the id sequences and aligns their INCREMENT BY with the configured allocation size before
+ * Hibernate starts. Hibernate takes the increment from the database, so the mappings, the bulk
+ * repositories and databases created with SERIAL/IDENTITY ids all use the same block size.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private final DataSource dataSource;
+
+    @Value(IdSequences.ALLOCATION_SIZE_PROPERTY)
+    private int allocationSize;
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor idSequenceInitializerDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdSequenceInitializer.class);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement select = connection.prepareStatement(
+                        "SELECT seqincrement FROM pg_sequence WHERE seqrelid = to_regclass(?)");
+                Statement alter = connection.createStatement()) {
+
+            for (String sequence : IdSequences.SEQUENCES) {
+                select.setString(1, sequence);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        // Hibernate would create it with the mapping's size before it could read this one
+                        alter.execute("CREATE SEQUENCE " + sequence + " INCREMENT BY " + allocationSize);
+                        continue;
+                    }
+                    if (rs.getLong(1) == allocationSize) {
+                        continue;
+                    }
+                    logger.info("Changing increment of {} from {} to {}", sequence, rs.getLong(1), allocationSize);
+                }
+                alter.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + allocationSize);
+            }
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to align id sequences", e);
+            throw new RuntimeException("Id sequence initialization failed", e);
+        }
+    }
+}
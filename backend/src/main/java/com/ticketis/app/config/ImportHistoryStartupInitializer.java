@@ -1,8 +1,10 @@
 package com.ticketis.app.config;
 
 import com.ticketis.app.service.fileImport.ImportHistoryService;
+import com.ticketis.app.service.fileImport.ImportResumeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
@@ -14,16 +16,24 @@ import org.springframework.stereotype.Component;
 public class ImportHistoryStartupInitializer {
 
     private final ImportHistoryService importHistoryService;
+    private final ImportResumeService importResumeService;
+
+    @Value("${app.import.resume-on-startup:true}")
+    private boolean resumeOnStartup;
 
     @EventListener(ApplicationReadyEvent.class)
     @Order(2)
     public void markIncompleteImportsAsFailed() {
         log.info("Starting import history cleanup on server launch...");
         try {
-            importHistoryService.markIncompleteImportsAsFailed();
+            if (resumeOnStartup) {
+                importResumeService.resumeIncompleteImports();
+            } else {
+                importHistoryService.markIncompleteImportsAsFailed();
+            }
             log.info("Import history cleanup completed successfully");
         } catch (Exception e) {
-            log.error("Failed to mark incomplete imports as failed on startup", e);
+            log.error("Failed to resume or mark incomplete imports on startup", e);
         }
     }
 }
@@ -0,0 +1,88 @@
+package com.ticketis.app.config;
+
+import com.ticketis.app.dto.jms.BatchProgress;
+import com.ticketis.app.dto.jms.ImportProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.JavaSerializationMarshaller;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache manager for import progress, separate from the Hibernate second level cache. In clustered
+ * mode the caches are replicated over JGroups, so every node consuming import batches sees the
+ * same progress. Clustering is off by default, a single node keeps its progress locally and does
+ * not join whatever cluster answers on the network.
+ */
+@Slf4j
+@Configuration
+public class ImportProgressCacheConfig {
+
+    public static final String IMPORT_PROGRESS_CACHE = "import-progress";
+    public static final String BATCH_PROGRESS_CACHE = "import-batch-progress";
+
+    @Value("${app.import.progress.clustered:false}")
+    private boolean clustered;
+
+    @Value("${app.import.progress.cluster-name:ticketis-import-progress}")
+    private String clusterName;
+
+    // JGroups stack file, the default UDP multicast stack when empty
+    @Value("${app.import.progress.jgroups-config:}")
+    private String jgroupsConfig;
+
+    // finished imports are removed right away, this only bounds entries of imports that never finish
+    @Value("${app.import.progress.lifespan-hours:24}")
+    private long lifespanHours;
+
+    @Bean(destroyMethod = "stop")
+    public EmbeddedCacheManager importProgressCacheManager() {
+        return createCacheManager(clustered, clusterName, jgroupsConfig, lifespanHours);
+    }
+
+    public static EmbeddedCacheManager createCacheManager(boolean clustered, String clusterName, String jgroupsConfig,
+            long lifespanHours) {
+        GlobalConfigurationBuilder global = clustered
+                ? GlobalConfigurationBuilder.defaultClusteredBuilder()
+                : new GlobalConfigurationBuilder().nonClusteredDefault();
+        if (clustered) {
+            global.transport().clusterName(clusterName);
+            if (jgroupsConfig != null && !jgroupsConfig.isBlank()) {
+                global.transport().addProperty("configurationFile", jgroupsConfig);
+            }
+        }
+        global.serialization()
+                .marshaller(new JavaSerializationMarshaller())
+                .allowList()
+                .addRegexps("com\\.ticketis\\.app\\.dto\\.jms\\..*", "com\\.ticketis\\.app\\.model\\.enums\\..*",
+                        "java\\..*");
+
+        ConfigurationBuilder cache = new ConfigurationBuilder();
+        cache.clustering().cacheMode(clustered ? CacheMode.REPL_SYNC : CacheMode.LOCAL);
+        cache.expiration().lifespan(lifespanHours, TimeUnit.HOURS);
+
+        DefaultCacheManager cacheManager = new DefaultCacheManager(global.build());
+        cacheManager.defineConfiguration(IMPORT_PROGRESS_CACHE, cache.build());
+        cacheManager.defineConfiguration(BATCH_PROGRESS_CACHE, cache.build());
+        log.info("Import progress cache started ({})", clustered ? "replicated, cluster " + clusterName : "local");
+        return cacheManager;
+    }
+
+    @Bean
+    public Cache<Long, ImportProgress> importProgressCache(EmbeddedCacheManager importProgressCacheManager) {
+        return importProgressCacheManager.getCache(IMPORT_PROGRESS_CACHE);
+    }
+
+    @Bean
+    public Cache<Long, BatchProgress> batchProgressCache(EmbeddedCacheManager importProgressCacheManager) {
+        return importProgressCacheManager.getCache(BATCH_PROGRESS_CACHE);
+    }
+}
@@ -3,8 +3,14 @@ package com.ticketis.app.config;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.Queue;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.activemq.artemis.jms.client.ActiveMQQueue;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisConfigurationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jms.annotation.EnableJms;
@@ -19,11 +25,12 @@ public class JmsConfig {
     @Bean
     public JmsListenerContainerFactory<?> queueListenerFactory(
             ConnectionFactory connectionFactory,
-            DefaultJmsListenerContainerFactoryConfigurer configurer) {
+            DefaultJmsListenerContainerFactoryConfigurer configurer,
+            @Value("${app.import.worker.concurrency:5-10}") String workerConcurrency) {
         DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         configurer.configure(factory, connectionFactory);
         factory.setSessionTransacted(true);
-        factory.setConcurrency("5-10");
+        factory.setConcurrency(workerConcurrency);
         factory.setErrorHandler(t -> {
             log.error("JMS error occurred: {}", t.getMessage(), t);
         });
@@ -35,6 +42,33 @@ public class JmsConfig {
         return new ActiveMQQueue("import.batch.queue");
     }
 
+    @Bean
+    public Queue importBatchDeadLetterQueue() {
+        return new ActiveMQQueue("import.batch.dlq");
+    }
+
+    /**
+     * Broker side redelivery for batches whose listener transaction rolled back: exponential
+     * delay between deliveries and the dead letter queue after the last attempt.
+     */
+    @Bean
+    public ArtemisConfigurationCustomizer importBatchAddressSettings(
+            @Value("${app.import.retry.max-attempts:10}") int maxAttempts,
+            @Value("${app.import.retry.initial-delay-ms:100}") long initialDelayMs,
+            @Value("${app.import.retry.multiplier:2.0}") double multiplier,
+            @Value("${app.import.retry.max-delay-ms:10000}") long maxDelayMs) {
+        return configuration -> {
+            configuration.addQueueConfiguration(QueueConfiguration.of("import.batch.dlq")
+                    .setRoutingType(RoutingType.ANYCAST));
+            configuration.addAddressSetting("import.batch.queue", new AddressSettings()
+                    .setDeadLetterAddress(SimpleString.of("import.batch.dlq"))
+                    .setMaxDeliveryAttempts(maxAttempts)
+                    .setRedeliveryDelay(initialDelayMs)
+                    .setRedeliveryMultiplier(multiplier)
+                    .setMaxRedeliveryDelay(maxDelayMs));
+        };
+    }
+
     @Bean
     public Queue fileUploadQueue() {
         return new ActiveMQQueue("file.upload.queue");
@@ -0,0 +1,53 @@
+package com.ticketis.app.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the unlogged ticket import staging table on every startup. It has no entity, so neither
+ * Hibernate nor the init script, which only runs on an empty database, would add it to an existing one.
+ */
+@Component
+@RequiredArgsConstructor
+public class StagingTableInitializer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingTableInitializer.class);
+    private static final String SCRIPT_PATH = "db/init/02-ticket-import-staging.sql";
+
+    private final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() {
+        try (InputStream inputStream = new ClassPathResource(SCRIPT_PATH).getInputStream();
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+
+            String script = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            for (String sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql.trim());
+                }
+            }
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            logger.info("Ticket import staging table is in place");
+        } catch (SQLException | IOException e) {
+            logger.error("Failed to create the ticket import staging table", e);
+            throw new RuntimeException("Staging table initialization failed", e);
+        }
+    }
+}
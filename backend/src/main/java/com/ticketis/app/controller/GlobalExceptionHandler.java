@@ -392,6 +392,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ImportNotResumableException.class)
+    public ResponseEntity<?> handleImportNotResumableException(ImportNotResumableException exception) {
+        ErrorResponse errorResponse = new ErrorResponse(exception.getMessage(), "Import cannot be resumed");
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(FailedToProcessImportException.class)
     public ResponseEntity<?> handleFailedToProcessImportException(FailedToProcessImportException exception) {
         ErrorResponse errorResponse = new ErrorResponse(exception.getMessage(), "Failed to process import");
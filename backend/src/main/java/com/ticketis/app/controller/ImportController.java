@@ -2,16 +2,21 @@ package com.ticketis.app.controller;
 
 import com.ticketis.app.dto.response.ImportResponse;
 import com.ticketis.app.service.fileImport.FileImportService;
+import com.ticketis.app.service.fileImport.ImportDryRunService;
+import com.ticketis.app.service.fileImport.ImportResumeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RequiredArgsConstructor
 @RestController
@@ -19,6 +24,8 @@ import org.springframework.web.multipart.MultipartFile;
 public class ImportController {
 
     private final FileImportService fileImportService;
+    private final ImportResumeService importResumeService;
+    private final ImportDryRunService importDryRunService;
 
     @GetMapping
     public ResponseEntity<?> getAllImports(Pageable pageable) {
@@ -33,6 +40,21 @@ public class ImportController {
         ImportResponse response = fileImportService.importFile(file, entityType);
         return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
     }
+
+    @PostMapping("/dry-run")
+    public ResponseEntity<StreamingResponseBody> dryRunImport(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "entityType", required = false) String entityType) {
+
+        StreamingResponseBody report = importDryRunService.dryRun(file, entityType);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(report);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable Long id) {
+        importResumeService.resumeImport(id);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
 }
 
 
@@ -1,51 +0,0 @@
-package com.ticketis.app.converter;
-
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.persistence.AttributeConverter;
-import jakarta.persistence.Converter;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-
-@Converter(autoApply = false)
-public class JsonNodeListConverter implements AttributeConverter<List<JsonNode>, String> {
-
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    @Override
-    public String convertToDatabaseColumn(List<JsonNode> attribute) {
-        if (attribute == null || attribute.isEmpty()) {
-            return null;
-        }
-        try {
-            return objectMapper.writeValueAsString(attribute);
-        } catch (Exception e) {
-            throw new RuntimeException("Error converting JsonNode list to JSON string", e);
-        }
-    }
-
-    @Override
-    public List<JsonNode> convertToEntityAttribute(String dbData) {
-        if (dbData == null || dbData.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        try {
-            return objectMapper.readValue(dbData, new TypeReference<List<JsonNode>>() {});
-        } catch (IOException e) {
-            throw new RuntimeException("Error converting JSON string to JsonNode list", e);
-        }
-    }
-}
-
-
-
-
-
-
-
-
-
-
-
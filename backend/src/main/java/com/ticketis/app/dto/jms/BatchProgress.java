@@ -1,14 +1,14 @@
 package com.ticketis.app.dto.jms;
 
 import com.ticketis.app.model.enums.BatchStatus;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
-class BatchProgress {
-    private Long batchId;
-    private int processedRecords;
-    private int errorCount;
-    private BatchStatus status;
+import java.io.Serializable;
+
+@Value
+public class BatchProgress implements Serializable {
+    Long batchId;
+    int processedRecords;
+    int errorCount;
+    BatchStatus status;
 }
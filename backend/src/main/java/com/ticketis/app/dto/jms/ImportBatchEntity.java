@@ -1,24 +1,24 @@
 package com.ticketis.app.dto.jms;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.ticketis.app.converter.JsonNodeListConverter;
+import com.ticketis.app.model.IdSequences;
 import com.ticketis.app.model.ImportHistoryItem;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
-
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "import_batches")
+@Table(name = "import_batches", indexes = @Index(name = "import_batches_import_status",
+        columnList = "import_id, batch_status"))
 public class ImportBatchEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_batches_id_seq")
+    @SequenceGenerator(name = "import_batches_id_seq", sequenceName = "import_batches_id_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -37,9 +37,14 @@ public class ImportBatchEntity {
     @Column(name = "batch_status", length = 255)
     private String batchStatus;
 
-    @Convert(converter = JsonNodeListConverter.class)
-    @Column(name = "records", columnDefinition = "TEXT")
-    private List<JsonNode> records;
+    @Column(name = "first_record")
+    private Integer firstRecord;
+
+    @Column(name = "byte_offset")
+    private Long byteOffset;
+
+    @Column(name = "byte_length")
+    private Long byteLength;
 
     @Min(value = 0)
     @Column(name = "total_records")
@@ -49,4 +54,16 @@ public class ImportBatchEntity {
     @Column(name = "processed_records")
     private Integer processedRecords;
 
+    // records from the start of the batch that were handled in committed transactions
+    @Column(name = "checkpoint_offset", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer checkpointOffset = 0;
+
+    // records imported among them
+    @Column(name = "checkpoint_processed", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer checkpointProcessed = 0;
+
+    // end of the furthest slice any attempt committed, records between the checkpoint and it may be stored
+    @Column(name = "replay_offset", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer replayOffset = 0;
+
 }
\ No newline at end of file
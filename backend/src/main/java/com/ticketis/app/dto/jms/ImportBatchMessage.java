@@ -1,6 +1,5 @@
 package com.ticketis.app.dto.jms;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +14,41 @@ public class ImportBatchMessage implements Serializable {
     private Long batchId;
     private Long importHistoryId;
     private String entityType;
-    private List<JsonNode> records;
+    // claim check: the records are read from this byte range of the stored upload
+    private String fileName;
+    private int firstRecord;
+    private int recordCount;
+    private long byteOffset;
+    private long byteLength;
     private int batchNumber;
     private int totalBatches;
     private int totalRecords;
-}
\ No newline at end of file
+    private int attempt = 1;
+    // set on retries: record offsets within the batch that are still to be imported
+    private List<RecordSlice> retrySlices;
+    // records of the batch committed by earlier attempts
+    private int processedRecords;
+    // replay after a restart: records of the batch before this offset that are already stored under their
+    // natural key count as imported, an earlier attempt may have committed them
+    private int replayOffset;
+
+    public ImportBatchMessage(Long batchId, Long importHistoryId, String entityType, String fileName,
+            int firstRecord, int recordCount, long byteOffset, long byteLength, int batchNumber, int totalBatches,
+            int totalRecords) {
+        this(batchId, importHistoryId, entityType, fileName, firstRecord, recordCount, byteOffset, byteLength,
+                batchNumber, totalBatches, totalRecords, 1, null, 0, 0);
+    }
+
+    public boolean isRetry() {
+        return attempt > 1;
+    }
+
+    public ImportBatchMessage nextAttempt(List<RecordSlice> slices, int processedRecords) {
+        return new ImportBatchMessage(batchId, importHistoryId, entityType, fileName, firstRecord, recordCount,
+                byteOffset, byteLength, batchNumber, totalBatches, totalRecords, attempt + 1, slices,
+                processedRecords, replayOffset);
+    }
+
+    public record RecordSlice(int from, int to) implements Serializable {
+    }
+}
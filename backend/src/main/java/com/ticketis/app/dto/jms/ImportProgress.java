@@ -1,52 +1,78 @@
 package com.ticketis.app.dto.jms;
 
 import com.ticketis.app.model.enums.BatchStatus;
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
 
+import java.io.Serializable;
 import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-@Data
-public class ImportProgress {
-    private final Long importHistoryId;
-    private final int totalBatches;
-    private final int totalRecords;
-    private final Map<Long, BatchProgress> batches = new ConcurrentHashMap<>();
-    private final Instant startTime = Instant.now();
-    
-    public void updateBatch(Long batchId, int processedRecords, int errorCount, BatchStatus status) {
-        BatchProgress batchProgress = new BatchProgress(batchId, processedRecords, errorCount, status);
-        batches.put(batchId, batchProgress);
-    }
-    
+
+/**
+ * Progress of one import as kept in the replicated progress cache. Values are immutable, every
+ * change produces a new value that is swapped in with a conditional replace, so reports from all
+ * nodes are merged without lost updates. Aggregates are O(1) to read and to update, a batch
+ * reported again replaces its previous contribution.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ImportProgress implements Serializable {
+    Long importHistoryId;
+    int totalBatches;
+    int totalRecords;
+    // false while batches are still being parsed and dispatched, totals are not final yet
+    boolean dispatchCompleted;
+    Instant startTime;
+    int completedBatches;
+    int failedBatches;
+    int partialBatches;
+    int totalProcessed;
+    int totalErrors;
+
+    public ImportProgress(Long importHistoryId, int totalBatches, int totalRecords) {
+        this(importHistoryId, totalBatches, totalRecords, true, Instant.now(), 0, 0, 0, 0, 0);
+    }
+
+    public static ImportProgress streaming(Long importHistoryId) {
+        return new ImportProgress(importHistoryId, 0, 0, false, Instant.now(), 0, 0, 0, 0, 0);
+    }
+
+    public ImportProgress withDispatchCompleted(int totalBatches, int totalRecords) {
+        return new ImportProgress(importHistoryId, totalBatches, totalRecords, true, startTime, completedBatches,
+                failedBatches, partialBatches, totalProcessed, totalErrors);
+    }
+
+    public ImportProgress withBatch(BatchProgress previous, BatchProgress current) {
+        ImportProgress updated = previous != null ? apply(previous, -1) : this;
+        return updated.apply(current, 1);
+    }
+
+    private ImportProgress apply(BatchProgress batch, int sign) {
+        BatchStatus status = batch.getStatus();
+        return new ImportProgress(importHistoryId, totalBatches, totalRecords, dispatchCompleted, startTime,
+                completedBatches + (isFinished(status) ? sign : 0),
+                failedBatches + (status == BatchStatus.FAILED ? sign : 0),
+                partialBatches + (status == BatchStatus.PARTIAL_SUCCESS ? sign : 0),
+                totalProcessed + sign * batch.getProcessedRecords(),
+                totalErrors + sign * batch.getErrorCount());
+    }
+
+    private static boolean isFinished(BatchStatus status) {
+        return status == BatchStatus.SUCCESS || status == BatchStatus.PARTIAL_SUCCESS || status == BatchStatus.FAILED;
+    }
+
     public boolean isCompleted() {
-        return batches.values().stream()
-                .allMatch(bp -> bp.getStatus() == BatchStatus.SUCCESS || bp.getStatus() == BatchStatus.FAILED)
-                && batches.size() == totalBatches;
+        return dispatchCompleted && completedBatches == totalBatches;
     }
-    
+
+    /**
+     * Completed and no batch imported anything.
+     */
     public boolean isFailed() {
-        return batches.values().stream()
-                .anyMatch(bp -> bp.getStatus() == BatchStatus.FAILED)
-                && isCompleted();
-    }
-    
-    public int getCompletedBatches() {
-        return (int) batches.values().stream()
-                .filter(bp -> bp.getStatus() == BatchStatus.SUCCESS || bp.getStatus() == BatchStatus.FAILED)
-                .count();
-    }
-    
-    public int getTotalProcessed() {
-        return batches.values().stream()
-                .mapToInt(BatchProgress::getProcessedRecords)
-                .sum();
-    }
-    
-    public int getTotalErrors() {
-        return batches.values().stream()
-                .mapToInt(BatchProgress::getErrorCount)
-                .sum();
-    }
-}
\ No newline at end of file
+        return isCompleted() && failedBatches == totalBatches;
+    }
+
+    public boolean hasFailedBatches() {
+        return failedBatches > 0 || partialBatches > 0;
+    }
+}
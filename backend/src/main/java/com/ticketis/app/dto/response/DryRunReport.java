@@ -0,0 +1,42 @@
+package com.ticketis.app.dto.response;
+
+import java.util.Map;
+
+/**
+ * Lines of the NDJSON report produced by a dry-run import: one {@code error} line per validation
+ * error, a {@code parseError} line if the file stops being valid JSON, and a closing {@code summary}.
+ */
+public final class DryRunReport {
+
+    private DryRunReport() {
+    }
+
+    public record RecordError(String type, int record, String errorType, String message) {
+        public RecordError(int record, String errorType, String message) {
+            this("error", record, errorType, message);
+        }
+    }
+
+    public record ParseError(String type, int record, String message) {
+        public ParseError(int record, String message) {
+            this("parseError", record, message);
+        }
+    }
+
+    public record BatchPlan(String mode, int batchSize, int batches) {
+    }
+
+    public record Summary(
+            String type,
+            String entityType,
+            boolean valid,
+            int records,
+            int validRecords,
+            int invalidRecords,
+            long errors,
+            boolean errorsTruncated,
+            Map<String, Long> errorsByType,
+            BatchPlan plan,
+            long durationMs) {
+    }
+}
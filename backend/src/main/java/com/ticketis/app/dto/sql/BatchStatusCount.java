@@ -0,0 +1,8 @@
+package com.ticketis.app.dto.sql;
+
+public record BatchStatusCount(
+    String batchStatus,
+    Long batchCount
+) {
+    
+}
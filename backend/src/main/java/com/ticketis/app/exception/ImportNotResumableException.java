@@ -0,0 +1,8 @@
+package com.ticketis.app.exception;
+
+public class ImportNotResumableException extends RuntimeException {
+
+    public ImportNotResumableException(Long importHistoryId, String reason) {
+        super(String.format("Import %d cannot be resumed: %s", importHistoryId, reason));
+    }
+}
@@ -0,0 +1,12 @@
+package com.ticketis.app.importProcessor;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BatchImportResult {
+    private int importedCount;
+    private List<String> errors;
+}
@@ -0,0 +1,32 @@
+package com.ticketis.app.importProcessor;
+
+import java.util.List;
+
+/**
+ * Set-based load of a whole import in the caller's transaction. Records are staged chunk by chunk
+ * and only written to the entity tables by {@link #finish}, so a failed load leaves nothing behind
+ * once the transaction rolls back.
+ */
+public interface BulkLoad extends AutoCloseable {
+
+    /**
+     * Stages validated records.
+     *
+     * @return "Entity[n]: " prefixed errors of records that could not be staged
+     */
+    List<String> stage(ValidatedChunk chunk);
+
+    /**
+     * Checks all staged records at once and merges them when none conflicts. No other statement may
+     * run on the transaction's connection between the first {@link #stage} and this call.
+     *
+     * @return the merged count, or no count and at most maxReportedErrors conflicts
+     */
+    BatchImportResult finish(int maxReportedErrors);
+
+    /**
+     * Abandons a load that was not finished and marks the transaction for rollback.
+     */
+    @Override
+    void close();
+}
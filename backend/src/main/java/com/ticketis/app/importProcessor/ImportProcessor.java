@@ -1,6 +1,7 @@
 package com.ticketis.app.importProcessor;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface ImportProcessor {
@@ -9,5 +10,42 @@ public interface ImportProcessor {
 
     public List<String> importEntity(JsonNode node, int nodeIndex);
 
+    /**
+     * Validates a parsed record and binds it into the form {@link #importBatch} and the bulk load
+     * take as {@link ValidatedChunk#getRecords()}.
+     *
+     * @return the bound record, or null after adding the record's errors
+     */
+    Object bind(JsonNode node, List<String> errors);
+
+    default List<String> validate(JsonNode node) {
+        List<String> errors = new ArrayList<>();
+        bind(node, errors);
+        return errors;
+    }
+
+    /**
+     * Persists already validated records in the caller's transaction. A failure does not mark that
+     * transaction rollback-only, so the caller may roll back to a savepoint and carry on.
+     * With skipExisting, records already stored under their natural key count as imported, which
+     * makes replaying a resumed batch idempotent.
+     */
+    BatchImportResult importBatch(ValidatedChunk chunk, boolean skipExisting);
+
+    default BatchImportResult importBatch(ValidatedChunk chunk) {
+        return importBatch(chunk, false);
+    }
+
+    default boolean supportsBulkLoad() {
+        return false;
+    }
+
+    /**
+     * Starts a bulk load of the import into the caller's transaction, see {@link #supportsBulkLoad}.
+     */
+    default BulkLoad openBulkLoad(Long importId) {
+        throw new UnsupportedOperationException(getEntityType() + " imports have no bulk load");
+    }
+
     String getEntityType();
 }
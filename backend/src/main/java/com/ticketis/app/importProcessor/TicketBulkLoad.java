@@ -0,0 +1,142 @@
+package com.ticketis.app.importProcessor;
+
+import com.ticketis.app.exception.PassportIdAlreadyExistsException;
+import com.ticketis.app.repository.TicketStagingRepository;
+import com.ticketis.app.service.fileImport.TicketNameFilterService;
+import com.ticketis.app.util.PgBinaryCopyWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+/**
+ * Streams tickets into the staging table with binary COPY and merges them with set-based
+ * statements. Nested objects are flattened into the staged row, ids of referenced rows are checked
+ * by {@link TicketStagingRepository#findConflicts} instead of being loaded.
+ */
+@Slf4j
+class TicketBulkLoad implements BulkLoad {
+
+    private final TicketStagingRepository stagingRepository;
+    private final TicketNameFilterService nameFilterService;
+    private final long importId;
+    private final PGCopyOutputStream copy;
+    private final PgBinaryCopyWriter writer;
+    private int staged;
+
+    TicketBulkLoad(TicketStagingRepository stagingRepository, TicketNameFilterService nameFilterService,
+            long importId) {
+        this.stagingRepository = stagingRepository;
+        this.nameFilterService = nameFilterService;
+        this.importId = importId;
+        try {
+            this.copy = stagingRepository.openCopy();
+            this.writer = new PgBinaryCopyWriter(copy);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not start COPY into the staging table", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<String> stage(ValidatedChunk chunk) {
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                TicketRecord record = (TicketRecord) chunk.getRecords().get(i);
+                writeRow(writer, importId, chunk.getRecordIndices().get(i), record);
+                nameFilterService.add(record.getName());
+                staged++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return List.of();
+    }
+
+    @Override
+    public BatchImportResult finish(int maxReportedErrors) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<String> conflicts = stagingRepository.findConflicts(importId, maxReportedErrors);
+        if (!conflicts.isEmpty()) {
+            return new BatchImportResult(0, conflicts);
+        }
+
+        try {
+            stagingRepository.mergeDimensions(importId);
+        } catch (DuplicateKeyException e) {
+            log.error("Passport ID taken by a concurrent import: {}", e.getMessage());
+            throw new PassportIdAlreadyExistsException();
+        }
+        int imported = stagingRepository.insertTickets(importId);
+        stagingRepository.clear(importId);
+        log.debug("Merged {} of {} staged tickets", imported, staged);
+        return new BatchImportResult(imported, List.of());
+    }
+
+    @Override
+    public void close() {
+        if (!copy.isActive()) {
+            return;
+        }
+        // a cancelled COPY aborts the transaction, it must not be committed or used any further
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        try {
+            copy.cancelCopy();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not cancel COPY into the staging table", e);
+        }
+    }
+
+    /**
+     * Writes one staging row, the columns of {@link TicketStagingRepository#STAGING_COLUMNS} in order.
+     */
+    static void writeRow(PgBinaryCopyWriter writer, long importId, int index, TicketRecord record)
+            throws IOException {
+        boolean coordinates = record.getCoordinatesId() == null;
+        boolean person = record.hasEmbeddedPerson();
+        boolean location = person && record.hasLocation();
+        boolean event = record.hasEmbeddedEvent();
+        boolean venue = record.getVenueId() == null;
+
+        writer.startRow(TicketStagingRepository.STAGING_COLUMNS.length);
+        writer.writeLong(importId);
+        writer.writeInt(index);
+        writer.writeText(record.getName());
+        writer.writeLong(record.getCoordinatesId());
+        writer.writeInt(coordinates ? record.getCoordinatesX() : null);
+        writer.writeDouble(coordinates ? record.getCoordinatesY() : null);
+        writer.writeLong(record.getPersonId());
+        writer.writeText(person ? record.getEyeColor().name() : null);
+        writer.writeText(person ? record.getHairColor().name() : null);
+        writer.writeText(person ? record.getPassportId() : null);
+        writer.writeText(person && record.getNationality() != null ? record.getNationality().name() : null);
+        writer.writeFloat(location ? record.getLocationX() : null);
+        writer.writeInt(location ? record.getLocationY() : null);
+        writer.writeDouble(location ? record.getLocationZ() : null);
+        writer.writeText(location ? record.getLocationName() : null);
+        writer.writeLong(record.getEventId());
+        writer.writeText(event ? record.getEventName() : null);
+        writer.writeTimestamp(event ? record.getEventDate() : null);
+        writer.writeInt(event ? record.getEventMinAge() : null);
+        writer.writeText(event ? record.getEventDescription() : null);
+        writer.writeLong(record.getPrice());
+        writer.writeText(record.getType() == null ? null : record.getType().name());
+        writer.writeFloat(record.getDiscount());
+        writer.writeDouble(record.getNumber());
+        writer.writeBoolean(record.isRefundable());
+        writer.writeLong(record.getVenueId());
+        writer.writeText(venue ? record.getVenueName() : null);
+        writer.writeInt(venue ? record.getVenueCapacity() : null);
+        writer.writeText(venue && record.getVenueType() != null ? record.getVenueType().name() : null);
+    }
+}
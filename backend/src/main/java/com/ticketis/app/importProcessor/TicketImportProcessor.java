@@ -2,34 +2,30 @@ package com.ticketis.app.importProcessor;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.ticketis.app.exception.FileImportValidationException;
-import com.ticketis.app.exception.PassportIdAlreadyExistsException;
-import com.ticketis.app.exception.TicketNameAlreadyExistsException;
-import com.ticketis.app.exception.importBusinessException.UnableToGetNecessaryFieldException;
 import com.ticketis.app.model.Coordinates;
 import com.ticketis.app.model.Event;
 import com.ticketis.app.model.Location;
 import com.ticketis.app.model.Person;
 import com.ticketis.app.model.Ticket;
 import com.ticketis.app.model.Venue;
-import com.ticketis.app.model.enums.Color;
-import com.ticketis.app.model.enums.Country;
-import com.ticketis.app.model.enums.TicketType;
-import com.ticketis.app.model.enums.VenueType;
-import com.ticketis.app.repository.CoordinatesRepository;
-import com.ticketis.app.repository.EventRepository;
-import com.ticketis.app.repository.LocationRepository;
-import com.ticketis.app.repository.PersonRepository;
-import com.ticketis.app.repository.VenueRepository;
+import com.ticketis.app.repository.ImportBulkRepository;
+import com.ticketis.app.repository.TicketStagingRepository;
 import com.ticketis.app.service.ImportValidator;
-import com.ticketis.app.service.TicketService;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import com.ticketis.app.service.fileImport.ImportPersistenceContext;
+import com.ticketis.app.service.fileImport.TicketNameFilterService;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,40 +35,32 @@ import org.springframework.transaction.annotation.Transactional;
 public class TicketImportProcessor implements ImportProcessor {
 
     private final ImportValidator validator;
-    private final CoordinatesRepository coordinatesRepository;
-    private final VenueRepository venueRepository;
-    private final EventRepository eventRepository;
-    private final PersonRepository personRepository;
-    private final LocationRepository locationRepository;
+    private final ImportPersistenceContext persistenceContext;
+    private final ImportBulkRepository bulkRepository;
+    private final TicketStagingRepository stagingRepository;
+    private final TicketNameFilterService nameFilterService;
 
-    private final TicketService ticketService;
+    @Value("${app.import.reuse-existing-dimensions:true}")
+    private boolean reuseExistingDimensions;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public List<String> processImport(List<JsonNode> entities) {
         List<String> errors = new ArrayList<>();
-        List<Ticket> ticketsToSave = new ArrayList<>();
+        List<TicketRecord> valid = new ArrayList<>(entities.size());
+        List<Integer> indices = new ArrayList<>(entities.size());
 
         for (int i = 0; i < entities.size(); i++) {
-            JsonNode ticketNode = entities.get(i);
-            String entityPrefix = String.format("Entity[%d]: ", i + 1);
-
-            try {
-                List<String> validationErrors = validator.validateTicket(ticketNode);
-                if (!validationErrors.isEmpty()) {
-                    for (String error : validationErrors) {
-                        errors.add(entityPrefix + error);
-                    }
-                    continue;
-                }
-
-                Ticket ticket = buildTicketFromJson(ticketNode, errors, entityPrefix);
-                if (ticket != null) {
-                    ticketsToSave.add(ticket);
+            List<String> validationErrors = new ArrayList<>();
+            TicketRecord record = validator.bindTicket(entities.get(i), validationErrors);
+            if (record != null) {
+                valid.add(record);
+                indices.add(i);
+            } else {
+                String entityPrefix = entityPrefix(i);
+                for (String error : validationErrors) {
+                    errors.add(entityPrefix + error);
                 }
-            } catch (UnableToGetNecessaryFieldException e) {
-                log.error("Unable to get necessary field at index {}: {}", i,  e.getMessage());
-                throw e;
             }
         }
 
@@ -80,247 +68,337 @@ public class TicketImportProcessor implements ImportProcessor {
             throw new FileImportValidationException(errors);
         }
 
-        for (Ticket ticket : ticketsToSave) {
-            ticketService.saveTicket(ticket);
+        BatchImportResult result = importBatch(new ValidatedChunk(valid, indices, List.of()));
+        if (!result.getErrors().isEmpty()) {
+            throw new FileImportValidationException(result.getErrors());
         }
-
         return errors;
     }
 
     public List<String> importEntity(JsonNode node, int nodeIndex) {
-        List<String> errors = new ArrayList<>();
-        String entityPrefix = String.format("Entity[%d]: ", nodeIndex + 1);
+        List<String> validationErrors = new ArrayList<>();
+        TicketRecord record = validator.bindTicket(node, validationErrors);
+        if (record == null) {
+            return List.of(validationErrors.get(0));
+        }
+        return importBatch(new ValidatedChunk(List.of(record), List.of(nodeIndex), List.of())).getErrors();
+    }
 
-        try {
-            List<String> validationErrors = validator.validateTicket(node);
-            if (!validationErrors.isEmpty()) {
-                for (String error : validationErrors) {
-                    errors.add(error);
-                    return errors;
-                }
-            }
+    @Override
+    public TicketRecord bind(JsonNode node, List<String> errors) {
+        return validator.bindTicket(node, errors);
+    }
+
+    @Override
+    public BatchImportResult importBatch(ValidatedChunk chunk, boolean skipExisting) {
+        List<String> errors = new ArrayList<>();
+        List<Ticket> tickets = new ArrayList<>(chunk.size());
+        List<String> prefixes = new ArrayList<>(chunk.size());
+        References references = loadReferences(chunk);
 
-            Ticket ticket = buildTicketFromJson(node, errors, entityPrefix);
+        for (int i = 0; i < chunk.size(); i++) {
+            String entityPrefix = entityPrefix(chunk.getRecordIndices().get(i));
+            Ticket ticket = buildTicket((TicketRecord) chunk.getRecords().get(i), references, errors, entityPrefix);
             if (ticket != null) {
-                ticketService.saveTicket(ticket);
+                tickets.add(ticket);
+                prefixes.add(entityPrefix);
             }
-        } catch (UnableToGetNecessaryFieldException e) {
-            log.error("Unable to get necessary field at index {}: {}", nodeIndex, e.getMessage());
-            throw e;
-        } catch (TicketNameAlreadyExistsException e) {
-            log.error("Ticket name integrity restriction violated at index {}: {}", nodeIndex, e.getMessage());
-            throw e;
-        } catch (DataIntegrityViolationException e) {
-            log.error("Ticket name integrity restriction violated at index {}: {}", nodeIndex, e.getMessage());
-            throw new PassportIdAlreadyExistsException();
         }
-        return errors;
+
+        Deduplicated deduplicated = rejectDuplicates(tickets, prefixes, errors, skipExisting);
+        List<Ticket> accepted = deduplicated.accepted();
+        persistTickets(accepted);
+        persistenceContext.afterWrite(accepted.size());
+
+        log.debug("Imported {} of {} validated tickets, {} already present", accepted.size(), chunk.size(),
+                deduplicated.alreadyPresent());
+        return new BatchImportResult(accepted.size() + deduplicated.alreadyPresent(), errors);
+    }
+
+    @Override
+    public boolean supportsBulkLoad() {
+        return true;
     }
 
-    private Ticket buildTicketFromJson(JsonNode ticketNode, List<String> errors, String prefix) {
-        try {
-            String name = ticketNode.get("name").asText();
+    @Override
+    public BulkLoad openBulkLoad(Long importId) {
+        return new TicketBulkLoad(stagingRepository, nameFilterService, importId);
+    }
 
-            Coordinates coordinates = resolveCoordinates(ticketNode, errors, prefix);
-            if (coordinates == null) {
-                throw new UnableToGetNecessaryFieldException("coordinates", "ticket");
+    // with skipExisting a ticket whose name is already stored counts as imported, a replayed record wrote it before
+    private Deduplicated rejectDuplicates(List<Ticket> tickets, List<String> prefixes, List<String> errors,
+            boolean skipExisting) {
+        Set<String> names = new HashSet<>();
+        Set<String> passportIds = new HashSet<>();
+        for (Ticket ticket : tickets) {
+            names.add(ticket.getName());
+            String passportId = newPassportId(ticket);
+            if (passportId != null) {
+                passportIds.add(passportId);
             }
+        }
 
-            Person person = resolvePerson(ticketNode, errors, prefix);
-            Event event = resolveEvent(ticketNode, errors, prefix);
-            
-            long price = ticketNode.get("price").asLong();
-            
-            TicketType type = null;
-            if (ticketNode.has("type") && !ticketNode.get("type").isNull()) {
-                try {
-                    type = TicketType.valueOf(ticketNode.get("type").asText().toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    errors.add(prefix + "Invalid ticket type");
-                    return null;
-                }
-            }
+        Set<String> existingNames = bulkRepository.findExistingTicketNames(names);
+        Set<String> existingPassportIds = bulkRepository.findExistingPassportIds(passportIds);
 
-            Float discount = null;
-            if (ticketNode.has("discount") && !ticketNode.get("discount").isNull()) {
-                discount = (float) ticketNode.get("discount").asDouble();
-            }
+        Set<String> batchNames = new HashSet<>();
+        Set<String> batchPassportIds = new HashSet<>();
+        List<Ticket> accepted = new ArrayList<>(tickets.size());
+        int alreadyPresent = 0;
 
-            double number = ticketNode.get("number").asDouble();
-            boolean refundable = ticketNode.get("refundable").asBoolean();
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            String name = ticket.getName();
+            String passportId = newPassportId(ticket);
 
-            Venue venue = resolveVenue(ticketNode, errors, prefix);
-            if (venue == null) {
-                return null;
+            if (skipExisting && existingNames.contains(name) && batchNames.add(name)) {
+                alreadyPresent++;
+                continue;
+            }
+            if (existingNames.contains(name) || batchNames.contains(name)) {
+                errors.add(prefixes.get(i) + String.format("Ticket with name '%s' already exists", name));
+                continue;
+            }
+            if (passportId != null
+                    && (existingPassportIds.contains(passportId) || batchPassportIds.contains(passportId))) {
+                errors.add(prefixes.get(i) + String.format("Person with passport ID '%s' already exists", passportId));
+                continue;
             }
 
-            return new Ticket(name, coordinates, person, event, price, type, discount, number, refundable, venue);
-        } catch (UnableToGetNecessaryFieldException e) {
-            throw e;
-        } catch (IllegalArgumentException | NullPointerException e) {
-            log.error("Error building ticket: {}", e.getMessage());
-            errors.add(prefix + "Error building ticket: " + e.getMessage());
-            return null;
+            batchNames.add(name);
+            if (passportId != null) {
+                batchPassportIds.add(passportId);
+            }
+            accepted.add(ticket);
         }
+        return new Deduplicated(accepted, alreadyPresent);
     }
 
-    private Coordinates resolveCoordinates(JsonNode ticketNode, List<String> errors, String prefix) {
-        if (ticketNode.has("coordinatesId") && !ticketNode.get("coordinatesId").isNull()) {
-            long coordinatesId = ticketNode.get("coordinatesId").asLong();
-            return coordinatesRepository.findById(coordinatesId)
-                    .orElse(null);
-        }
-
-        if (ticketNode.has("coordinates") && !ticketNode.get("coordinates").isNull()) {
-            JsonNode coordsNode = ticketNode.get("coordinates");
-            int x = coordsNode.get("x").asInt();
-            double y = coordsNode.get("y").asDouble();
-            Coordinates coordinates = new Coordinates(x, y);
-            coordinates = coordinatesRepository.save(coordinates);
-            log.debug("Created new coordinates: x={}, y={}", x, y);
-            return coordinates;
-        }
+    private record Deduplicated(List<Ticket> accepted, int alreadyPresent) {
+    }
 
-        errors.add(prefix + "Coordinates are required");
-        return null;
+    private String newPassportId(Ticket ticket) {
+        Person person = ticket.getPerson();
+        return person != null && person.getId() == null ? person.getPassportID() : null;
     }
 
-    private Venue resolveVenue(JsonNode ticketNode, List<String> errors, String prefix) {
-        if (ticketNode.has("venueId") && !ticketNode.get("venueId").isNull()) {
-            int venueId = ticketNode.get("venueId").asInt();
-            return venueRepository.findById(venueId)
-                    .orElse(null);
+    private void persistTickets(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
         }
 
-        if (ticketNode.has("venue") && !ticketNode.get("venue").isNull()) {
-            JsonNode venueNode = ticketNode.get("venue");
-            String name = venueNode.get("name").asText();
-            int capacity = venueNode.get("capacity").asInt();
-            
-            VenueType type = null;
-            if (venueNode.has("type") && !venueNode.get("type").isNull()) {
-                try {
-                    type = VenueType.valueOf(venueNode.get("type").asText().toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    errors.add(prefix + "Invalid venue type");
-                    return null;
-                }
+        List<Person> persons = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            Person person = ticket.getPerson();
+            if (person != null && person.getId() == null) {
+                persons.add(person);
             }
+        }
 
-            Venue venue = new Venue(name, capacity, type);
-            venue = venueRepository.save(venue);
-            log.debug("Created new venue: {}", name);
-            return venue;
+        // dimension-first: every distinct embedded object is stored once and shared by the tickets
+        List<Coordinates> coordinates = intern(tickets, Ticket::getCoordinates, Ticket::setCoordinates,
+                Coordinates::getId, c -> Arrays.asList(c.getX(), c.getY()));
+        List<Venue> venues = intern(tickets, Ticket::getVenue, Ticket::setVenue, Venue::getId,
+                v -> Arrays.asList(v.getName(), v.getCapacity(), v.getType()));
+        List<Event> events = intern(tickets, Ticket::getEvent, Ticket::setEvent, Event::getId,
+                e -> Arrays.asList(e.getName(), e.getDate(), e.getMinAge(), e.getDescription()));
+        List<Location> locations = intern(persons, Person::getLocation, Person::setLocation, Location::getId,
+                l -> Arrays.asList(l.getX(), l.getY(), l.getZ(), l.getName()));
+
+        if (reuseExistingDimensions) {
+            coordinates = reuseExisting(coordinates, bulkRepository::findCoordinatesIds, Coordinates::setId);
+            venues = reuseExisting(venues, bulkRepository::findVenueIds, (venue, id) -> venue.setId(id.intValue()));
+            events = reuseExisting(events, bulkRepository::findEventIds, (event, id) -> event.setId(id.intValue()));
+            locations = reuseExisting(locations, bulkRepository::findLocationIds, Location::setId);
         }
 
-        errors.add(prefix + "Venue is required");
-        return null;
+        assignIds("locations", locations, Location::setId);
+        assignIds("persons", persons, Person::setId);
+        assignIds("coordinates", coordinates, Coordinates::setId);
+        assignIds("venues", venues, (venue, id) -> venue.setId(id.intValue()));
+        assignIds("events", events, (event, id) -> event.setId(id.intValue()));
+        assignIds("tickets", tickets, Ticket::setId);
+
+        bulkRepository.insertLocations(locations);
+        bulkRepository.insertPersons(persons);
+        bulkRepository.insertCoordinates(coordinates);
+        bulkRepository.insertVenues(venues);
+        bulkRepository.insertEvents(events);
+        bulkRepository.insertTickets(tickets);
+        tickets.forEach(ticket -> nameFilterService.add(ticket.getName()));
     }
 
-    private Event resolveEvent(JsonNode ticketNode, List<String> errors, String prefix) {
-        if (ticketNode.has("eventId") && !ticketNode.get("eventId").isNull()) {
-            int eventId = ticketNode.get("eventId").asInt();
-            return eventRepository.findById(eventId)
-                    .orElse(null);
+    /**
+     * Replaces equal new nested objects of the owners with one shared instance.
+     *
+     * @return the distinct new instances
+     */
+    private <O, T> List<T> intern(List<O> owners, Function<O, T> getter, BiConsumer<O, T> setter,
+            Function<T, Object> idGetter, Function<T, List<Object>> naturalKey) {
+        Map<List<Object>, T> canonical = new LinkedHashMap<>();
+        for (O owner : owners) {
+            T nested = getter.apply(owner);
+            if (nested == null || idGetter.apply(nested) != null) {
+                continue;
+            }
+            T shared = canonical.putIfAbsent(naturalKey.apply(nested), nested);
+            if (shared != null) {
+                setter.accept(owner, shared);
+            }
         }
+        return new ArrayList<>(canonical.values());
+    }
 
-        if (ticketNode.has("event") && !ticketNode.get("event").isNull()) {
-            JsonNode eventNode = ticketNode.get("event");
-            String name = eventNode.get("name").asText();
-            
-            Date date = null;
-            if (eventNode.has("date") && !eventNode.get("date").isNull()) {
-                try {
-                    String dateStr = eventNode.get("date").asText();
-                    SimpleDateFormat[] formats = {
-                        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"),
-                        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS"),
-                        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"),
-                        new SimpleDateFormat("yyyy-MM-dd")
-                    };
-                    boolean parsed = false;
-                    for (SimpleDateFormat sdf : formats) {
-                        try {
-                            date = sdf.parse(dateStr);
-                            parsed = true;
-                            break;
-                        } catch (ParseException ignored) {
-                        }
-                    }
-                    if (!parsed) {
-                        log.warn("Could not parse event date: {}", dateStr);
-                    }
-                } catch (IllegalArgumentException | NullPointerException e) {
-                    log.warn("Error parsing event date: {}", e.getMessage());
-                }
+    /**
+     * Points new objects that equal an existing row at that row.
+     *
+     * @return the objects that still have to be inserted
+     */
+    private <T> List<T> reuseExisting(List<T> entities, Function<List<T>, List<Long>> findIds,
+            BiConsumer<T, Long> idSetter) {
+        List<Long> existingIds = findIds.apply(entities);
+        List<T> missing = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            if (existingIds.get(i) != null) {
+                idSetter.accept(entities.get(i), existingIds.get(i));
+            } else {
+                missing.add(entities.get(i));
             }
+        }
+        return missing;
+    }
 
-            Integer minAge = null;
-            if (eventNode.has("minAge") && !eventNode.get("minAge").isNull()) {
-                minAge = eventNode.get("minAge").asInt();
-            }
+    private <T> void assignIds(String table, List<T> entities, BiConsumer<T, Long> idSetter) {
+        List<Long> ids = bulkRepository.allocateIds(table, entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            idSetter.accept(entities.get(i), ids.get(i));
+        }
+    }
 
-            String description = eventNode.get("description").asText();
+    private References loadReferences(ValidatedChunk chunk) {
+        Set<Long> coordinatesIds = new HashSet<>();
+        Set<Integer> venueIds = new HashSet<>();
+        Set<Integer> eventIds = new HashSet<>();
+        Set<Long> personIds = new HashSet<>();
 
-            Event event = new Event(name, date, minAge, description);
-            event = eventRepository.save(event);
-            log.debug("Created new event: {}", name);
-            return event;
+        for (Object bound : chunk.getRecords()) {
+            TicketRecord record = (TicketRecord) bound;
+            if (record.getCoordinatesId() != null) {
+                coordinatesIds.add(record.getCoordinatesId());
+            }
+            if (record.getVenueId() != null) {
+                venueIds.add(record.getVenueId().intValue());
+            }
+            if (record.getEventId() != null) {
+                eventIds.add(record.getEventId().intValue());
+            }
+            if (record.getPersonId() != null) {
+                personIds.add(record.getPersonId());
+            }
         }
 
-        return null;
+        return new References(
+                toMap(persistenceContext.findAllById(Coordinates.class, coordinatesIds), Coordinates::getId),
+                toMap(persistenceContext.findAllById(Venue.class, venueIds), Venue::getId),
+                toMap(persistenceContext.findAllById(Event.class, eventIds), Event::getId),
+                toMap(persistenceContext.findAllById(Person.class, personIds), Person::getId));
     }
 
-    private Person resolvePerson(JsonNode ticketNode, List<String> errors, String prefix) {
-        if (ticketNode.has("personId") && !ticketNode.get("personId").isNull()) {
-            long personId = ticketNode.get("personId").asLong();
-            return personRepository.findById(personId)
-                    .orElse(null);
+    // concatenation instead of String.format, this runs for every imported record
+    private static String entityPrefix(int index) {
+        return "Entity[" + (index + 1) + "]: ";
+    }
+
+    private static <K, V> Map<K, V> toMap(List<V> entities, Function<V, K> idGetter) {
+        Map<K, V> map = new HashMap<>(entities.size() * 2);
+        for (V entity : entities) {
+            map.put(idGetter.apply(entity), entity);
         }
+        return map;
+    }
 
-        if (ticketNode.has("person") && !ticketNode.get("person").isNull()) {
-            JsonNode personNode = ticketNode.get("person");
-            
-            Color eyeColor = Color.valueOf(personNode.get("eyeColor").asText().toUpperCase());
-            Color hairColor = Color.valueOf(personNode.get("hairColor").asText().toUpperCase());
-            String passportID = personNode.get("passportID").asText();
-            
-            Country nationality = null;
-            if (personNode.has("nationality") && !personNode.get("nationality").isNull()) {
-                try {
-                    nationality = Country.valueOf(personNode.get("nationality").asText().toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    errors.add(prefix + "Invalid nationality");
-                    return null;
-                }
-            }
+    private Ticket buildTicket(TicketRecord record, References references, List<String> errors, String prefix) {
+        Coordinates coordinates = resolveCoordinates(record, references, errors, prefix);
+        Person person = resolvePerson(record, references, errors, prefix);
+        Event event = resolveEvent(record, references, errors, prefix);
+        Venue venue = resolveVenue(record, references, errors, prefix);
+        if (coordinates == null || venue == null || record.getPersonId() != null && person == null
+                || record.getEventId() != null && event == null) {
+            return null;
+        }
 
-            Location location = null;
-            if (personNode.has("location") && !personNode.get("location").isNull()) {
-                JsonNode locationNode = personNode.get("location");
-                float x = (float) locationNode.get("x").asDouble();
-                int y = locationNode.get("y").asInt();
-                double z = locationNode.get("z").asDouble();
-                String name = locationNode.has("name") && !locationNode.get("name").isNull() 
-                    ? locationNode.get("name").asText() : null;
-                
-                location = new Location(x, y, z, name);
-                location = locationRepository.save(location);
-                log.debug("Created new location: {}", name);
-            }
+        return new Ticket(record.getName(), coordinates, person, event, record.getPrice(), record.getType(),
+                record.getDiscount(), record.getNumber(), record.isRefundable(), venue);
+    }
 
-            Person person = new Person(eyeColor, hairColor, location, passportID, nationality);
-            person = personRepository.save(person);
-            log.debug("Created new person: {}", passportID);
-            return person;
+    private Coordinates resolveCoordinates(TicketRecord record, References references, List<String> errors,
+            String prefix) {
+        if (record.getCoordinatesId() == null) {
+            return new Coordinates(record.getCoordinatesX(), record.getCoordinatesY());
+        }
+        Coordinates coordinates = references.coordinates().get(record.getCoordinatesId());
+        if (coordinates == null) {
+            errors.add(prefix + "Coordinates with id " + record.getCoordinatesId() + " not found");
         }
+        return coordinates;
+    }
 
-        return null;
+    private Venue resolveVenue(TicketRecord record, References references, List<String> errors, String prefix) {
+        if (record.getVenueId() == null) {
+            return new Venue(record.getVenueName(), record.getVenueCapacity(), record.getVenueType());
+        }
+        Venue venue = references.venues().get(record.getVenueId().intValue());
+        if (venue == null) {
+            errors.add(prefix + "Venue with id " + record.getVenueId() + " not found");
+        }
+        return venue;
+    }
+
+    private Event resolveEvent(TicketRecord record, References references, List<String> errors, String prefix) {
+        if (record.hasEmbeddedEvent()) {
+            return new Event(record.getEventName(), record.getEventDate(), record.getEventMinAge(),
+                    record.getEventDescription());
+        }
+        if (record.getEventId() == null) {
+            return null;
+        }
+        Event event = references.events().get(record.getEventId().intValue());
+        if (event == null) {
+            errors.add(prefix + "Event with id " + record.getEventId() + " not found");
+        }
+        return event;
+    }
+
+    private Person resolvePerson(TicketRecord record, References references, List<String> errors, String prefix) {
+        if (record.hasEmbeddedPerson()) {
+            Location location = record.hasLocation()
+                    ? new Location(record.getLocationX(), record.getLocationY(), record.getLocationZ(),
+                            record.getLocationName())
+                    : null;
+            return new Person(record.getEyeColor(), record.getHairColor(), location, record.getPassportId(),
+                    record.getNationality());
+        }
+        if (record.getPersonId() == null) {
+            return null;
+        }
+        Person person = references.persons().get(record.getPersonId());
+        if (person == null) {
+            errors.add(prefix + "Person with id " + record.getPersonId() + " not found");
+        }
+        return person;
     }
 
     @Override
     public String getEntityType() {
         return "ticket";
     }
+
+    // existing entities referenced by id from a chunk of records, loaded with one query per type
+    private record References(
+            Map<Long, Coordinates> coordinates,
+            Map<Integer, Venue> venues,
+            Map<Integer, Event> events,
+            Map<Long, Person> persons) {
+    }
 }
 
@@ -0,0 +1,70 @@
+package com.ticketis.app.importProcessor;
+
+import com.ticketis.app.model.enums.Color;
+import com.ticketis.app.model.enums.Country;
+import com.ticketis.app.model.enums.TicketType;
+import com.ticketis.app.model.enums.VenueType;
+import java.util.Date;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A validated ticket record bound once from its parsed JSON, so persistence reads plain fields
+ * instead of looking every value up in the tree again. Nested objects are flattened into it: each
+ * is either referenced by its id or embedded, and enum values are held as their shared constants.
+ */
+@Getter
+@Setter
+public class TicketRecord {
+
+    private String name;
+    private long price;
+    private double number;
+    private boolean refundable;
+    private TicketType type;
+    private Float discount;
+
+    // embedded coordinates unless coordinatesId is set
+    private Long coordinatesId;
+    private int coordinatesX;
+    private double coordinatesY;
+
+    // no person when neither personId nor passportId is set
+    private Long personId;
+    private String passportId;
+    private Color eyeColor;
+    private Color hairColor;
+    private Country nationality;
+    @Getter(AccessLevel.NONE)
+    private boolean location;
+    private float locationX;
+    private int locationY;
+    private double locationZ;
+    private String locationName;
+
+    // no event when neither eventId nor eventName is set
+    private Long eventId;
+    private String eventName;
+    private Date eventDate;
+    private Integer eventMinAge;
+    private String eventDescription;
+
+    // embedded venue unless venueId is set
+    private Long venueId;
+    private String venueName;
+    private int venueCapacity;
+    private VenueType venueType;
+
+    public boolean hasEmbeddedPerson() {
+        return personId == null && passportId != null;
+    }
+
+    public boolean hasLocation() {
+        return location;
+    }
+
+    public boolean hasEmbeddedEvent() {
+        return eventId == null && eventName != null;
+    }
+}
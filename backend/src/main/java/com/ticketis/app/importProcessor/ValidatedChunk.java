@@ -0,0 +1,22 @@
+package com.ticketis.app.importProcessor;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ValidatedChunk {
+    // records that passed validation as bound by the processor, and their positions in the import
+    private List<?> records;
+    private List<Integer> recordIndices;
+    private List<String> errors;
+
+    public int size() {
+        return records.size();
+    }
+
+    public ValidatedChunk slice(int from, int to) {
+        return new ValidatedChunk(records.subList(from, to), recordIndices.subList(from, to), List.of());
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -14,10 +16,12 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "coordinates")
+@Table(name = "coordinates", indexes = @Index(name = "coordinates_natural_key", columnList = "x, y"))
 public class Coordinates implements Serializable{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coordinates_id_seq")
+    @SequenceGenerator(name = "coordinates_id_seq", sequenceName = "coordinates_id_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @NotNull
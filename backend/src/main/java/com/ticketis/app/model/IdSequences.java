@@ -0,0 +1,20 @@
+package com.ticketis.app.model;
+
+public final class IdSequences {
+
+    // allocation size of the entity mappings; Hibernate adopts the INCREMENT BY of the database sequence,
+    // which IdSequenceInitializer sets from app.ids.allocation-size
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String ALLOCATION_SIZE_PROPERTY = "${app.ids.allocation-size:50}";
+
+    public static final String[] SEQUENCES = { "locations_id_seq", "venues_id_seq", "events_id_seq",
+            "persons_id_seq", "coordinates_id_seq", "tickets_id_seq", "import_batches_id_seq" };
+
+    private IdSequences() {
+    }
+
+    public static String forTable(String table) {
+        return table + "_id_seq";
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.ticketis.app.converter.ImportStatusConverter;
 import com.ticketis.app.dto.jms.ImportBatchEntity;
 import com.ticketis.app.model.enums.ImportStatus;
+import com.ticketis.app.model.enums.ImportStrategy;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -53,6 +54,18 @@ public class ImportHistoryItem {
     @Column(name = "error_count")
     private Integer errorCount;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "import_strategy", length = 32)
+    private ImportStrategy importStrategy;
+
+    // planner inputs and estimated cost of every strategy, why importStrategy was chosen
+    @Column(name = "plan_details", length = 1024)
+    private String planDetails;
+
+    // SHA-256 of the uploaded file, hex encoded
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @JsonManagedReference
     @OneToMany(mappedBy = "importHistoryItem", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ImportBatchEntity> batches;
@@ -0,0 +1,13 @@
+package com.ticketis.app.model;
+
+import com.ticketis.app.model.enums.ImportStrategy;
+import lombok.Value;
+
+@Value
+public class ImportPlan {
+    ImportStrategy strategy;
+    int estimatedRecords;
+    long estimatedDurationMs;
+    // inputs and the estimate of every strategy, shown to operators
+    String details;
+}
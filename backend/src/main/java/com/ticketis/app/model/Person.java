@@ -14,6 +14,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -29,7 +30,9 @@ import lombok.NoArgsConstructor;
 public class Person implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persons_id_seq")
+    @SequenceGenerator(name = "persons_id_seq", sequenceName = "persons_id_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,13 @@
+package com.ticketis.app.model;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+@Value
+public class StoredUpload {
+    Path path;
+    long size;
+    // hex SHA-256 of the content, checked again whenever the bytes are copied
+    String contentHash;
+}
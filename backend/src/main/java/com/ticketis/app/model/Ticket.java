@@ -16,6 +16,7 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
@@ -34,7 +35,9 @@ import lombok.NoArgsConstructor;
 public class Ticket implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tickets_id_seq")
+    @SequenceGenerator(name = "tickets_id_seq", sequenceName = "tickets_id_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     // Поле не может быть null,
     // Значение поля должно быть больше 0,
     // Значение этого поля должно быть уникальным,
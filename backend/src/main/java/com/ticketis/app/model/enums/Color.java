@@ -8,6 +8,20 @@ public enum Color {
     YELLOW,
     WHITE;
 
+    private static final Color[] VALUES = values();
+
+    /**
+     * Case-insensitive lookup that allocates nothing, null for unknown names.
+     */
+    public static Color fromName(String name) {
+        for (Color color : VALUES) {
+            if (color.name().equalsIgnoreCase(name)) {
+                return color;
+            }
+        }
+        return null;
+    }
+
     public static String[] getNames() {
         return Arrays.stream(Color.values())
             .map(Enum::name)
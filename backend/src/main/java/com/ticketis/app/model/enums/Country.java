@@ -8,6 +8,20 @@ public enum Country {
     CHINA,
     ITALY;
 
+    private static final Country[] VALUES = values();
+
+    /**
+     * Case-insensitive lookup that allocates nothing, null for unknown names.
+     */
+    public static Country fromName(String name) {
+        for (Country country : VALUES) {
+            if (country.name().equalsIgnoreCase(name)) {
+                return country;
+            }
+        }
+        return null;
+    }
+
     public static String[] getNames() {
         return Arrays.stream(Country.values())
             .map(Enum::name)
@@ -0,0 +1,7 @@
+package com.ticketis.app.model.enums;
+
+public enum ImportStrategy {
+    SYNC,           // parsed and written in the upload request
+    DISTRIBUTED,    // JMS batches processed by the workers
+    BULK_COPY       // staged with COPY and merged in one transaction
+}
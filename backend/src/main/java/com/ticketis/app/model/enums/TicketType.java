@@ -8,6 +8,20 @@ public enum TicketType {
     BUDGETARY,
     CHEAP;
 
+    private static final TicketType[] VALUES = values();
+
+    /**
+     * Case-insensitive lookup that allocates nothing, null for unknown names.
+     */
+    public static TicketType fromName(String name) {
+        for (TicketType ticketType : VALUES) {
+            if (ticketType.name().equalsIgnoreCase(name)) {
+                return ticketType;
+            }
+        }
+        return null;
+    }
+
     public static String[] getNames() {
         return Arrays.stream(TicketType.values())
             .map(Enum::name)
@@ -8,6 +8,20 @@ public enum VenueType {
     OPEN_AREA,
     MALL;
 
+    private static final VenueType[] VALUES = values();
+
+    /**
+     * Case-insensitive lookup that allocates nothing, null for unknown names.
+     */
+    public static VenueType fromName(String name) {
+        for (VenueType venueType : VALUES) {
+            if (venueType.name().equalsIgnoreCase(name)) {
+                return venueType;
+            }
+        }
+        return null;
+    }
+
     public static String[] getNames() {
         return Arrays.stream(VenueType.values())
             .map(Enum::name)
@@ -1,11 +1,55 @@
 package com.ticketis.app.repository;
 
 import com.ticketis.app.dto.jms.ImportBatchEntity;
+import com.ticketis.app.dto.sql.BatchStatusCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ImportBatchRepository extends JpaRepository<ImportBatchEntity, Long> {
     
     List<ImportBatchEntity> findByImportHistoryItemId(Long importHistoryItemId);
+
+    @Modifying
+    @Query("UPDATE ImportBatchEntity b SET b.batchStatus = :status, b.processedRecords = :processed WHERE b.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status, @Param("processed") int processed);
+
+    @Modifying
+    @Query("UPDATE ImportBatchEntity b SET b.batchStatus = :status WHERE b.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    @Modifying
+    @Query("UPDATE ImportBatchEntity b SET b.processedRecords = :processed WHERE b.id = :id")
+    int updateProcessedRecords(@Param("id") Long id, @Param("processed") int processed);
+
+    @Modifying
+    @Query("""
+            UPDATE ImportBatchEntity b
+            SET b.checkpointOffset = :offset, b.checkpointProcessed = :processed
+            WHERE b.id = :id AND b.checkpointOffset = :expectedOffset
+            """)
+    int advanceCheckpoint(@Param("id") Long id, @Param("expectedOffset") int expectedOffset,
+            @Param("offset") int offset, @Param("processed") int processed);
+
+    @Modifying
+    @Query("UPDATE ImportBatchEntity b SET b.replayOffset = :offset WHERE b.id = :id AND b.replayOffset < :offset")
+    int extendReplayOffset(@Param("id") Long id, @Param("offset") int offset);
+
+    @Query("""
+            SELECT COALESCE(SUM(b.totalRecords - b.processedRecords), 0)
+            FROM ImportBatchEntity b
+            WHERE b.batchStatus IN :statuses
+            """)
+    long countUnprocessedRecords(@Param("statuses") List<String> statuses);
+
+    @Query("""
+            SELECT new com.ticketis.app.dto.sql.BatchStatusCount(b.batchStatus, COUNT(b))
+            FROM ImportBatchEntity b
+            WHERE b.importHistoryItem.id = :importHistoryItemId
+            GROUP BY b.batchStatus
+            """)
+    List<BatchStatusCount> countByStatus(@Param("importHistoryItemId") Long importHistoryItemId);
 }
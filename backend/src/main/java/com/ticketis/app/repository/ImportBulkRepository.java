@@ -0,0 +1,290 @@
+package com.ticketis.app.repository;
+
+import com.ticketis.app.dto.jms.ImportBatchEntity;
+import com.ticketis.app.model.Coordinates;
+import com.ticketis.app.model.Event;
+import com.ticketis.app.model.IdSequences;
+import com.ticketis.app.model.Location;
+import com.ticketis.app.model.Person;
+import com.ticketis.app.model.Ticket;
+import com.ticketis.app.model.Venue;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class ImportBulkRepository {
+
+    private static final int NAME_FETCH_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.import.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    @Value(IdSequences.ALLOCATION_SIZE_PROPERTY)
+    private int allocationSize;
+
+    public Set<String> findExistingTicketNames(Collection<String> names) {
+        return findExisting("SELECT name FROM tickets WHERE name = ANY(?)", names);
+    }
+
+    public Set<String> findExistingPassportIds(Collection<String> passportIds) {
+        return findExisting("SELECT passport_id FROM persons WHERE passport_id = ANY(?)", passportIds);
+    }
+
+    public List<Long> findCoordinatesIds(List<Coordinates> coordinates) {
+        return findIdsByNaturalKey(
+                "SELECT k.ord, min(c.id) FROM coordinates c "
+                        + "JOIN unnest(?, ?) WITH ORDINALITY AS k(x, y, ord) ON c.x = k.x AND c.y = k.y "
+                        + "GROUP BY k.ord",
+                coordinates.size(), con -> new Array[] {
+                        con.createArrayOf("int4", coordinates.stream().map(Coordinates::getX).toArray()),
+                        con.createArrayOf("float8", coordinates.stream().map(Coordinates::getY).toArray())
+                });
+    }
+
+    public List<Long> findLocationIds(List<Location> locations) {
+        return findIdsByNaturalKey(
+                "SELECT k.ord, min(l.id) FROM locations l "
+                        + "JOIN unnest(?, ?, ?, ?) WITH ORDINALITY AS k(x, y, z, name, ord) "
+                        + "ON l.x::real = k.x AND l.y = k.y AND l.z = k.z AND l.name IS NOT DISTINCT FROM k.name "
+                        + "GROUP BY k.ord",
+                locations.size(), con -> new Array[] {
+                        con.createArrayOf("float4", locations.stream().map(Location::getX).toArray()),
+                        con.createArrayOf("int4", locations.stream().map(Location::getY).toArray()),
+                        con.createArrayOf("float8", locations.stream().map(Location::getZ).toArray()),
+                        con.createArrayOf("varchar", locations.stream().map(Location::getName).toArray())
+                });
+    }
+
+    public List<Long> findVenueIds(List<Venue> venues) {
+        return findIdsByNaturalKey(
+                "SELECT k.ord, min(v.id) FROM venues v "
+                        + "JOIN unnest(?, ?, ?) WITH ORDINALITY AS k(name, capacity, type, ord) "
+                        + "ON v.name = k.name AND v.capacity = k.capacity AND v.type IS NOT DISTINCT FROM k.type "
+                        + "GROUP BY k.ord",
+                venues.size(), con -> new Array[] {
+                        con.createArrayOf("varchar", venues.stream().map(Venue::getName).toArray()),
+                        con.createArrayOf("int4", venues.stream().map(Venue::getCapacity).toArray()),
+                        con.createArrayOf("varchar", venues.stream()
+                                .map(venue -> venue.getType() == null ? null : venue.getType().name()).toArray())
+                });
+    }
+
+    public List<Long> findEventIds(List<Event> events) {
+        return findIdsByNaturalKey(
+                "SELECT k.ord, min(e.id) FROM events e "
+                        + "JOIN unnest(?, ?, ?, ?) WITH ORDINALITY AS k(name, date, min_age, description, ord) "
+                        + "ON e.name = k.name AND e.date IS NOT DISTINCT FROM k.date "
+                        + "AND e.min_age IS NOT DISTINCT FROM k.min_age AND e.description = k.description "
+                        + "GROUP BY k.ord",
+                events.size(), con -> new Array[] {
+                        con.createArrayOf("varchar", events.stream().map(Event::getName).toArray()),
+                        con.createArrayOf("timestamp", events.stream()
+                                .map(event -> event.getDate() == null ? null : new Timestamp(event.getDate().getTime()))
+                                .toArray()),
+                        con.createArrayOf("int4", events.stream().map(Event::getMinAge).toArray()),
+                        con.createArrayOf("text", events.stream().map(Event::getDescription).toArray())
+                });
+    }
+
+    public long countTickets() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM tickets", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void forEachTicketName(Consumer<String> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT name FROM tickets");
+            ps.setFetchSize(NAME_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    public List<Long> allocateIds(String table, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        // every nextval reserves a whole pooled-lo block [value, value + allocationSize), same as Hibernate does
+        int blocks = (count + allocationSize - 1) / allocationSize;
+        return jdbcTemplate.queryForList(
+                "SELECT block.start + step.n FROM "
+                        + "(SELECT nextval(?::regclass) AS start FROM generate_series(1, ?)) block "
+                        + "CROSS JOIN generate_series(0, ? - 1) AS step(n) "
+                        + "ORDER BY 1 LIMIT ?",
+                Long.class, IdSequences.forTable(table), blocks, allocationSize, count);
+    }
+
+    public void insertLocations(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO locations (id, x, y, z, name) VALUES (?, ?, ?, ?, ?)",
+                locations, jdbcBatchSize, (ps, location) -> {
+                    ps.setLong(1, location.getId());
+                    ps.setFloat(2, location.getX());
+                    ps.setInt(3, location.getY());
+                    ps.setDouble(4, location.getZ());
+                    ps.setObject(5, location.getName(), Types.VARCHAR);
+                });
+    }
+
+    public void insertPersons(List<Person> persons) {
+        if (persons.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO persons (id, eye_color, hair_color, location_id, passport_id, nationality) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                persons, jdbcBatchSize, (ps, person) -> {
+                    ps.setLong(1, person.getId());
+                    ps.setString(2, person.getEyeColor().name());
+                    ps.setString(3, person.getHairColor().name());
+                    ps.setObject(4, person.getLocation() == null ? null : person.getLocation().getId(),
+                            Types.BIGINT);
+                    ps.setString(5, person.getPassportID());
+                    ps.setObject(6, person.getNationality() == null ? null : person.getNationality().name(),
+                            Types.VARCHAR);
+                });
+    }
+
+    public void insertCoordinates(List<Coordinates> coordinates) {
+        if (coordinates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO coordinates (id, x, y) VALUES (?, ?, ?)",
+                coordinates, jdbcBatchSize, (ps, coords) -> {
+                    ps.setLong(1, coords.getId());
+                    ps.setInt(2, coords.getX());
+                    ps.setDouble(3, coords.getY());
+                });
+    }
+
+    public void insertVenues(List<Venue> venues) {
+        if (venues.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO venues (id, name, capacity, type) VALUES (?, ?, ?, ?)",
+                venues, jdbcBatchSize, (ps, venue) -> {
+                    ps.setInt(1, venue.getId());
+                    ps.setString(2, venue.getName());
+                    ps.setInt(3, venue.getCapacity());
+                    ps.setObject(4, venue.getType() == null ? null : venue.getType().name(), Types.VARCHAR);
+                });
+    }
+
+    public void insertEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO events (id, name, date, min_age, description) VALUES (?, ?, ?, ?, ?)",
+                events, jdbcBatchSize, (ps, event) -> {
+                    ps.setInt(1, event.getId());
+                    ps.setString(2, event.getName());
+                    ps.setObject(3, event.getDate() == null ? null : new Timestamp(event.getDate().getTime()),
+                            Types.TIMESTAMP);
+                    ps.setObject(4, event.getMinAge(), Types.INTEGER);
+                    ps.setString(5, event.getDescription());
+                });
+    }
+
+    public void insertTickets(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        Timestamp creationDate = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO tickets (id, name, coordinates_id, creation_date, person_id, event_id, price, type, "
+                        + "discount, number, refundable, venue_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                tickets, jdbcBatchSize, (ps, ticket) -> {
+                    ps.setLong(1, ticket.getId());
+                    ps.setString(2, ticket.getName());
+                    ps.setLong(3, ticket.getCoordinates().getId());
+                    ps.setTimestamp(4, creationDate);
+                    ps.setObject(5, ticket.getPerson() == null ? null : ticket.getPerson().getId(), Types.BIGINT);
+                    ps.setObject(6, ticket.getEvent() == null ? null : ticket.getEvent().getId(), Types.INTEGER);
+                    ps.setLong(7, ticket.getPrice());
+                    ps.setObject(8, ticket.getType() == null ? null : ticket.getType().name(), Types.VARCHAR);
+                    ps.setObject(9, ticket.getDiscount(), Types.REAL);
+                    ps.setDouble(10, ticket.getNumber());
+                    ps.setBoolean(11, ticket.getRefundable());
+                    ps.setInt(12, ticket.getVenue().getId());
+                });
+    }
+
+    // ids of rows equal to each key (null where there is none), aligned with the keys
+    private List<Long> findIdsByNaturalKey(String sql, int keyCount, KeyArrays keyArrays) {
+        List<Long> ids = new ArrayList<>(Collections.nCopies(keyCount, null));
+        if (keyCount == 0) {
+            return ids;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            Array[] arrays = keyArrays.create(con);
+            for (int i = 0; i < arrays.length; i++) {
+                ps.setArray(i + 1, arrays[i]);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> ids.set((int) rs.getLong(1) - 1, rs.getLong(2)));
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface KeyArrays {
+        Array[] create(Connection con) throws SQLException;
+    }
+
+    public void insertImportBatches(Long importHistoryId, List<ImportBatchEntity> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO import_batches (id, import_id, batch_number, batch_size, batch_status, total_records, "
+                        + "processed_records, first_record, byte_offset, byte_length) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                batches, jdbcBatchSize, (ps, batch) -> {
+                    ps.setLong(1, batch.getId());
+                    ps.setLong(2, importHistoryId);
+                    ps.setInt(3, batch.getBatchNumber());
+                    ps.setInt(4, batch.getBatchSize());
+                    ps.setString(5, batch.getBatchStatus());
+                    ps.setInt(6, batch.getTotalRecords());
+                    ps.setInt(7, batch.getProcessedRecords());
+                    ps.setInt(8, batch.getFirstRecord());
+                    ps.setLong(9, batch.getByteOffset());
+                    ps.setLong(10, batch.getByteLength());
+                });
+    }
+
+    private Set<String> findExisting(String sql, Collection<String> values) {
+        if (values.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("varchar", values.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+}
@@ -12,4 +12,9 @@ public interface ImportHistoryRepository extends JpaRepository<ImportHistoryItem
     
     List<ImportHistoryItem> findByImportStatusNotIn(List<ImportStatus> statuses);
 
+    List<ImportHistoryItem> findByImportStatusIn(List<ImportStatus> statuses);
+
+    Optional<ImportHistoryItem> findFirstByContentHashAndImportStatusAndIdNotOrderByIdDesc(
+            String contentHash, ImportStatus status, Long id);
+
 }
@@ -0,0 +1,205 @@
+package com.ticketis.app.repository;
+
+import com.ticketis.app.model.IdSequences;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based ticket import through the unlogged {@code ticket_import_staging} table. Records are
+ * copied in, checked and merged into the entity tables with one statement per table, all in the
+ * caller's transaction, so a rollback also discards the staged rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TicketStagingRepository {
+
+    // the order of the fields in every row written to the COPY stream
+    public static final String[] STAGING_COLUMNS = { "import_id", "ord", "name", "coordinates_id", "coord_x",
+            "coord_y", "person_id", "eye_color", "hair_color", "passport_id", "nationality", "loc_x", "loc_y",
+            "loc_z", "loc_name", "event_id", "event_name", "event_date", "event_min_age", "event_description",
+            "price", "type", "discount", "number", "refundable", "venue_id", "venue_name", "venue_capacity",
+            "venue_type" };
+
+    private static final String COPY_SQL = "COPY ticket_import_staging (" + String.join(", ", STAGING_COLUMNS)
+            + ") FROM STDIN (FORMAT binary)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    @Value(IdSequences.ALLOCATION_SIZE_PROPERTY)
+    private int allocationSize;
+
+    /**
+     * Starts a binary COPY into the staging table on the transaction's connection. The connection
+     * cannot run other statements until the returned stream is closed or the copy is cancelled.
+     */
+    public PGCopyOutputStream openCopy() throws SQLException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        return new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL);
+    }
+
+    /**
+     * Staged records that cannot be merged: duplicate ticket names and passport IDs, within the
+     * import or against stored rows, and references to missing rows. Checked for all records at once.
+     *
+     * @return "Entity[n]: " prefixed errors in record order, at most {@code limit} plus a count of the rest
+     */
+    public List<String> findConflicts(long importId, int limit) {
+        String sql = "SELECT ord, message, count(*) OVER () FROM ("
+                + "SELECT s.ord, format('Ticket with name ''%s'' already exists', s.name) AS message FROM ("
+                + "SELECT ord, name, row_number() OVER (PARTITION BY name ORDER BY ord) AS occurrence "
+                + "FROM ticket_import_staging WHERE import_id = ?) s "
+                + "WHERE s.occurrence > 1 OR EXISTS (SELECT 1 FROM tickets t WHERE t.name = s.name) "
+                + "UNION ALL "
+                + "SELECT s.ord, format('Person with passport ID ''%s'' already exists', s.passport_id) FROM ("
+                + "SELECT ord, passport_id, row_number() OVER (PARTITION BY passport_id ORDER BY ord) AS occurrence "
+                + "FROM ticket_import_staging WHERE import_id = ? AND person_id IS NULL AND passport_id IS NOT NULL) s "
+                + "WHERE s.occurrence > 1 OR EXISTS (SELECT 1 FROM persons p WHERE p.passport_id = s.passport_id) "
+                + "UNION ALL "
+                + missingReference("coordinates", "coordinates_id", "Coordinates")
+                + "UNION ALL "
+                + missingReference("venues", "venue_id", "Venue")
+                + "UNION ALL "
+                + missingReference("events", "event_id", "Event")
+                + "UNION ALL "
+                + missingReference("persons", "person_id", "Person")
+                + ") conflicts ORDER BY ord LIMIT ?";
+
+        List<String> errors = new ArrayList<>();
+        long[] total = { 0 };
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            errors.add("Entity[" + (rs.getInt(1) + 1) + "]: " + rs.getString(2));
+            total[0] = rs.getLong(3);
+        }, importId, importId, importId, importId, importId, importId, limit);
+
+        if (total[0] > errors.size()) {
+            errors.add(String.format("%d more conflicting records not listed", total[0] - errors.size()));
+        }
+        return errors;
+    }
+
+    private static String missingReference(String table, String column, String entity) {
+        return "SELECT s.ord, format('" + entity + " with id %s not found', s." + column + ") "
+                + "FROM ticket_import_staging s WHERE s.import_id = ? AND s." + column + " IS NOT NULL "
+                + "AND NOT EXISTS (SELECT 1 FROM " + table + " t WHERE t.id = s." + column + ") ";
+    }
+
+    /**
+     * Inserts the distinct new dimension rows of the staged records, reusing stored rows with the same
+     * natural key except for persons, and points the staged records at them. Persons go last as they
+     * need their locations.
+     */
+    public void mergeDimensions(long importId) {
+        mergeDimension(importId, "coordinates", "coordinates_id", "x, y", "s.coord_x, s.coord_y",
+                "s.coordinates_id IS NULL",
+                "t.x = s.coord_x AND t.y = s.coord_y");
+        mergeDimension(importId, "venues", "venue_id", "name, capacity, type",
+                "s.venue_name, s.venue_capacity, s.venue_type",
+                "s.venue_id IS NULL",
+                "t.name = s.venue_name AND t.capacity = s.venue_capacity AND t.type IS NOT DISTINCT FROM s.venue_type");
+        mergeDimension(importId, "events", "event_id", "name, date, min_age, description",
+                "s.event_name, s.event_date, s.event_min_age, s.event_description",
+                "s.event_id IS NULL AND s.event_name IS NOT NULL",
+                "t.name = s.event_name AND t.date IS NOT DISTINCT FROM s.event_date "
+                        + "AND t.min_age IS NOT DISTINCT FROM s.event_min_age AND t.description = s.event_description");
+        mergeDimension(importId, "locations", "location_id", "x, y, z, name",
+                "s.loc_x, s.loc_y, s.loc_z, s.loc_name",
+                "s.person_id IS NULL AND s.passport_id IS NOT NULL AND s.loc_y IS NOT NULL",
+                "t.x::real = s.loc_x AND t.y = s.loc_y AND t.z = s.loc_z AND t.name IS NOT DISTINCT FROM s.loc_name");
+        mergePersons(importId);
+    }
+
+    /**
+     * Inserts every new person as staged, without looking for stored ones: findConflicts already
+     * rejected passport IDs that were taken, so one committed by a concurrent import since then fails
+     * on the unique constraint instead of being reused. Staged records point at the inserted rows.
+     */
+    private void mergePersons(long importId) {
+        String columns = "eye_color, hair_color, location_id, passport_id, nationality";
+        String newRows = "SELECT d.*, row_number() OVER () - 1 AS rn FROM ("
+                + "SELECT DISTINCT s.eye_color, s.hair_color, s.location_id, s.passport_id, s.nationality "
+                + "FROM ticket_import_staging s "
+                + "WHERE s.import_id = ? AND s.person_id IS NULL AND s.passport_id IS NOT NULL"
+                + ") d (" + columns + ")";
+        jdbcTemplate.update("WITH " + pooledRows("persons", newRows) + ", "
+                + "inserted AS (" + pooledInsert("persons", columns, columns) + " RETURNING id, passport_id) "
+                + "UPDATE ticket_import_staging s SET person_id = i.id FROM inserted i "
+                + "WHERE s.import_id = ? AND s.person_id IS NULL AND s.passport_id = i.passport_id",
+                importId, importId);
+    }
+
+    private void mergeDimension(long importId, String table, String idColumn, String columns, String stagedColumns,
+            String filter, String naturalKeyMatch) {
+        insertWithPooledIds(table, columns, columns,
+                "SELECT d.*, row_number() OVER () - 1 AS rn FROM ("
+                        + "SELECT DISTINCT " + stagedColumns + " FROM ticket_import_staging s "
+                        + "WHERE s.import_id = ? AND " + filter + " "
+                        + "AND NOT EXISTS (SELECT 1 FROM " + table + " t WHERE " + naturalKeyMatch + ")"
+                        + ") d (" + columns + ")",
+                importId);
+
+        jdbcTemplate.update("UPDATE ticket_import_staging s SET " + idColumn + " = ("
+                + "SELECT min(t.id) FROM " + table + " t WHERE " + naturalKeyMatch + ") "
+                + "WHERE s.import_id = ? AND " + filter, importId);
+    }
+
+    /**
+     * Inserts one ticket per staged record, in record order.
+     *
+     * @return number of tickets inserted
+     */
+    public int insertTickets(long importId) {
+        return insertWithPooledIds("tickets",
+                "name, coordinates_id, creation_date, person_id, event_id, price, type, discount, number, "
+                        + "refundable, venue_id",
+                "name, coordinates_id, ?::timestamp, person_id, event_id, price, type, discount, number, "
+                        + "refundable, venue_id",
+                "SELECT s.*, row_number() OVER (ORDER BY s.ord) - 1 AS rn FROM ticket_import_staging s "
+                        + "WHERE s.import_id = ?",
+                importId, new Timestamp(System.currentTimeMillis()));
+    }
+
+    public void clear(long importId) {
+        jdbcTemplate.update("DELETE FROM ticket_import_staging WHERE import_id = ?", importId);
+    }
+
+    /**
+     * INSERT ... SELECT of the rows of {@code newRows}, numbered 0.. in its {@code rn} column. Ids are
+     * taken from pooled-lo blocks of the table's sequence, one nextval per block as in
+     * {@link ImportBulkRepository#allocateIds}, never one per row. Parameters of newRows come before
+     * those of the select list.
+     */
+    private int insertWithPooledIds(String table, String columns, String selectList, String newRows,
+            Object... args) {
+        return jdbcTemplate.update("WITH " + pooledRows(table, newRows) + " "
+                + pooledInsert(table, columns, selectList), args);
+    }
+
+    // the new_rows and blocks CTEs of a pooled insert
+    private String pooledRows(String table, String newRows) {
+        int blockSize = allocationSize;
+        return "new_rows AS (" + newRows + "), "
+                + "blocks AS (SELECT nextval('" + IdSequences.forTable(table) + "') AS start, "
+                + "row_number() OVER () - 1 AS block FROM generate_series(1, "
+                + "(SELECT ((count(*) + " + (blockSize - 1) + ") / " + blockSize + ")::int FROM new_rows)))";
+    }
+
+    private String pooledInsert(String table, String columns, String selectList) {
+        int blockSize = allocationSize;
+        return "INSERT INTO " + table + " (id, " + columns + ") "
+                + "SELECT b.start + n.rn % " + blockSize + ", " + selectList + " "
+                + "FROM new_rows n JOIN blocks b ON b.block = n.rn / " + blockSize;
+    }
+}
@@ -1,10 +1,13 @@
 package com.ticketis.app.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.ticketis.app.importProcessor.TicketRecord;
 import com.ticketis.app.model.enums.Color;
 import com.ticketis.app.model.enums.Country;
 import com.ticketis.app.model.enums.TicketType;
 import com.ticketis.app.model.enums.VenueType;
+import com.ticketis.app.util.ImportDates;
+import com.ticketis.app.util.ImportFileFormat;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
@@ -33,9 +36,8 @@ public class ImportValidator {
             throw new IllegalArgumentException("File size cannot be zero");
         }
 
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || !originalFilename.toLowerCase().endsWith(".json")) {
-            throw new IllegalArgumentException("Only JSON files are supported for import");
+        if (ImportFileFormat.detect(file.getOriginalFilename(), file.getContentType()) == null) {
+            throw new IllegalArgumentException("Only JSON, NDJSON and CSV files are supported for import");
         }
     }
 
@@ -64,12 +66,15 @@ public class ImportValidator {
 
     private String getRequiredText(JsonNode node, String fieldName, String entityType, List<String> errors) {
         validateRequiredField(node, fieldName, entityType, errors);
-        if (node != null && !node.isNull() && node.isTextual()) {
+        // numbers are taken as text, CSV cells that look numeric are parsed as numbers
+        if (node != null && !node.isNull() && node.isValueNode()) {
             String value = node.asText();
             if (value.isBlank()) {
                 errors.add(String.format("%s.%s cannot be blank", entityType, fieldName));
             }
             return value;
+        } else if (node != null && !node.isNull()) {
+            errors.add(String.format("%s.%s must be a string", entityType, fieldName));
         }
         return null;
     }
@@ -104,214 +109,237 @@ public class ImportValidator {
         return null;
     }
 
-    public List<String> validateCoordinates(JsonNode coordinatesNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (coordinatesNode == null || !coordinatesNode.isObject()) {
+    private Long getId(JsonNode node, String fieldName, List<String> errors) {
+        if (!node.isIntegralNumber()) {
+            errors.add(String.format("ticket.%s must be an integer", fieldName));
+            return null;
+        }
+        return node.asLong();
+    }
+
+    private static boolean hasValue(JsonNode node, String fieldName) {
+        JsonNode value = node.get(fieldName);
+        return value != null && !value.isNull();
+    }
+
+    /**
+     * Binds a parsed ticket into a {@link TicketRecord}, checking every value as it is read, so each
+     * field of the tree is looked up once per import.
+     *
+     * @return the record, or null after adding its errors
+     */
+    public TicketRecord bindTicket(JsonNode ticketNode, List<String> errors) {
+        if (ticketNode == null || !ticketNode.isObject()) {
+            errors.add("Ticket must be an object");
+            return null;
+        }
+
+        int errorCount = errors.size();
+        TicketRecord ticket = new TicketRecord();
+        ticket.setName(getRequiredText(ticketNode.get("name"), "name", "ticket", errors));
+
+        if (hasValue(ticketNode, "coordinatesId")) {
+            ticket.setCoordinatesId(getId(ticketNode.get("coordinatesId"), "coordinatesId", errors));
+        } else {
+            bindCoordinates(ticketNode.get("coordinates"), ticket, errors);
+        }
+
+        Long price = getRequiredLong(ticketNode.get("price"), "price", "ticket", errors);
+        if (price != null && price <= 0) {
+            errors.add("Ticket.price must be > 0, got: " + price);
+        } else if (price != null) {
+            ticket.setPrice(price);
+        }
+
+        Double number = getRequiredDouble(ticketNode.get("number"), "number", "ticket", errors);
+        if (number != null && number <= 0) {
+            errors.add("Ticket.number must be > 0, got: " + number);
+        } else if (number != null) {
+            ticket.setNumber(number);
+        }
+
+        JsonNode refundableNode = ticketNode.get("refundable");
+        if (refundableNode == null || !refundableNode.isBoolean()) {
+            errors.add("Ticket.refundable must be a boolean");
+        } else {
+            ticket.setRefundable(refundableNode.booleanValue());
+        }
+
+        if (hasValue(ticketNode, "venueId")) {
+            ticket.setVenueId(getId(ticketNode.get("venueId"), "venueId", errors));
+        } else {
+            bindVenue(ticketNode.get("venue"), ticket, errors);
+        }
+
+        JsonNode discountNode = ticketNode.get("discount");
+        if (discountNode != null && !discountNode.isNull()) {
+            if (!discountNode.isNumber()) {
+                errors.add("ticket.discount must be a number");
+            } else if (discountNode.asDouble() <= 0 || discountNode.asDouble() > 100) {
+                errors.add("Ticket.discount must be between 0 and 100, got: " + discountNode.asDouble());
+            } else {
+                ticket.setDiscount((float) discountNode.asDouble());
+            }
+        }
+
+        if (hasValue(ticketNode, "type")) {
+            ticket.setType(TicketType.fromName(ticketNode.get("type").asText()));
+            if (ticket.getType() == null) {
+                errors.add("Ticket.type must be one of: " + String.join(", ", TicketType.getNames()));
+            }
+        }
+
+        if (hasValue(ticketNode, "personId")) {
+            ticket.setPersonId(getId(ticketNode.get("personId"), "personId", errors));
+        } else if (hasValue(ticketNode, "person")) {
+            bindPerson(ticketNode.get("person"), ticket, errors);
+        }
+
+        if (hasValue(ticketNode, "eventId")) {
+            ticket.setEventId(getId(ticketNode.get("eventId"), "eventId", errors));
+        } else if (hasValue(ticketNode, "event")) {
+            bindEvent(ticketNode.get("event"), ticket, errors);
+        }
+
+        return errors.size() > errorCount ? null : ticket;
+    }
+
+    private void bindCoordinates(JsonNode coordinatesNode, TicketRecord ticket, List<String> errors) {
+        if (coordinatesNode == null || coordinatesNode.isNull()) {
+            errors.add("Ticket must have either coordinates object or coordinatesId");
+            return;
+        }
+        if (!coordinatesNode.isObject()) {
             errors.add("Coordinates must be an object");
-            return errors;
+            return;
         }
-        
+
         Integer x = getRequiredInt(coordinatesNode.get("x"), "x", "coordinates", errors);
         if (x != null && x < -200) {
             errors.add("Coordinates.x must be >= -200, got: " + x);
+        } else if (x != null) {
+            ticket.setCoordinatesX(x);
         }
-        
+
         Double y = getRequiredDouble(coordinatesNode.get("y"), "y", "coordinates", errors);
         if (y != null && y < -4) {
             errors.add("Coordinates.y must be >= -4, got: " + y);
+        } else if (y != null) {
+            ticket.setCoordinatesY(y);
         }
-        
-        return errors;
     }
 
-    public List<String> validateLocation(JsonNode locationNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (locationNode == null || locationNode.isNull()) {
-            return errors;
-        }
-        
+    private void bindLocation(JsonNode locationNode, TicketRecord ticket, List<String> errors) {
         if (!locationNode.isObject()) {
             errors.add("Location must be an object");
-            return errors;
+            return;
         }
-        
-        getRequiredDouble(locationNode.get("x"), "x", "location", errors);
-        getRequiredInt(locationNode.get("y"), "y", "location", errors);
-        getRequiredDouble(locationNode.get("z"), "z", "location", errors);
-        
-        return errors;
+
+        Double x = getRequiredDouble(locationNode.get("x"), "x", "location", errors);
+        Integer y = getRequiredInt(locationNode.get("y"), "y", "location", errors);
+        Double z = getRequiredDouble(locationNode.get("z"), "z", "location", errors);
+        if (x == null || y == null || z == null) {
+            return;
+        }
+        ticket.setLocation(true);
+        ticket.setLocationX(x.floatValue());
+        ticket.setLocationY(y);
+        ticket.setLocationZ(z);
+        ticket.setLocationName(hasValue(locationNode, "name") ? locationNode.get("name").asText() : null);
     }
 
-    public List<String> validatePerson(JsonNode personNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (personNode == null || personNode.isNull()) {
-            return errors;
-        }
-        
+    private void bindPerson(JsonNode personNode, TicketRecord ticket, List<String> errors) {
         if (!personNode.isObject()) {
             errors.add("Person must be an object");
-            return errors;
+            return;
         }
-        
+
         String eyeColorStr = getRequiredText(personNode.get("eyeColor"), "eyeColor", "person", errors);
         String hairColorStr = getRequiredText(personNode.get("hairColor"), "hairColor", "person", errors);
         String passportID = getRequiredText(personNode.get("passportID"), "passportID", "person", errors);
-        
+
         if (eyeColorStr != null) {
-            try {
-                Color.valueOf(eyeColorStr.toUpperCase());
-            } catch (IllegalArgumentException e) {
+            ticket.setEyeColor(Color.fromName(eyeColorStr));
+            if (ticket.getEyeColor() == null) {
                 errors.add("Person.eyeColor must be one of: " + String.join(", ", Color.getNames()));
             }
         }
-        
+
         if (hairColorStr != null) {
-            try {
-                Color.valueOf(hairColorStr.toUpperCase());
-            } catch (IllegalArgumentException e) {
+            ticket.setHairColor(Color.fromName(hairColorStr));
+            if (ticket.getHairColor() == null) {
                 errors.add("Person.hairColor must be one of: " + String.join(", ", Color.getNames()));
             }
         }
-        
+
         if (passportID != null && passportID.length() > 29) {
             errors.add("Person.passportID must be <= 29 characters, got: " + passportID.length());
         }
-        
-        JsonNode nationalityNode = personNode.get("nationality");
-        if (nationalityNode != null && !nationalityNode.isNull() && nationalityNode.isTextual()) {
-            try {
-                Country.valueOf(nationalityNode.asText().toUpperCase());
-            } catch (IllegalArgumentException e) {
+        ticket.setPassportId(passportID);
+
+        if (hasValue(personNode, "nationality")) {
+            ticket.setNationality(Country.fromName(personNode.get("nationality").asText()));
+            if (ticket.getNationality() == null) {
                 errors.add("Person.nationality must be one of: " + String.join(", ", Country.getNames()));
             }
         }
-        
-        JsonNode locationNode = personNode.get("location");
-        if (locationNode != null && !locationNode.isNull()) {
-            errors.addAll(validateLocation(locationNode));
+
+        if (hasValue(personNode, "location")) {
+            bindLocation(personNode.get("location"), ticket, errors);
         }
-        
-        return errors;
     }
 
-    public List<String> validateEvent(JsonNode eventNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (eventNode == null || eventNode.isNull()) {
-            return errors;
-        }
-        
+    private void bindEvent(JsonNode eventNode, TicketRecord ticket, List<String> errors) {
         if (!eventNode.isObject()) {
             errors.add("Event must be an object");
-            return errors;
+            return;
         }
-        
-        getRequiredText(eventNode.get("name"), "name", "event", errors);
-        getRequiredText(eventNode.get("description"), "description", "event", errors);
-        
-        return errors;
-    }
 
-    public List<String> validateVenue(JsonNode venueNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (venueNode == null || !venueNode.isObject()) {
-            errors.add("Venue must be an object");
-            return errors;
-        }
-        
-        getRequiredText(venueNode.get("name"), "name", "venue", errors);
-        
-        Integer capacity = getRequiredInt(venueNode.get("capacity"), "capacity", "venue", errors);
-        if (capacity != null && capacity <= 0) {
-            errors.add("Venue.capacity must be > 0, got: " + capacity);
+        ticket.setEventName(getRequiredText(eventNode.get("name"), "name", "event", errors));
+        ticket.setEventDescription(getRequiredText(eventNode.get("description"), "description", "event", errors));
+
+        if (hasValue(eventNode, "date")) {
+            String date = eventNode.get("date").asText();
+            ticket.setEventDate(ImportDates.parse(date));
+            if (ticket.getEventDate() == null) {
+                log.warn("Could not parse event date: {}", date);
+            }
         }
-        
-        JsonNode typeNode = venueNode.get("type");
-        if (typeNode != null && !typeNode.isNull() && typeNode.isTextual()) {
-            try {
-                VenueType.valueOf(typeNode.asText().toUpperCase());
-            } catch (IllegalArgumentException e) {
-                errors.add("Venue.type must be one of: " + String.join(", ", VenueType.getNames()));
+
+        if (hasValue(eventNode, "minAge")) {
+            JsonNode minAgeNode = eventNode.get("minAge");
+            if (minAgeNode.isInt()) {
+                ticket.setEventMinAge(minAgeNode.intValue());
+            } else {
+                errors.add("event.minAge must be an integer");
             }
         }
-        
-        return errors;
     }
 
-    public List<String> validateTicket(JsonNode ticketNode) {
-        List<String> errors = new ArrayList<>();
-        
-        if (ticketNode == null || !ticketNode.isObject()) {
-            errors.add("Ticket must be an object");
-            return errors;
-        }
-        
-        getRequiredText(ticketNode.get("name"), "name", "ticket", errors);
-        
-        JsonNode coordinatesNode = ticketNode.get("coordinates");
-        JsonNode coordinatesIdNode = ticketNode.get("coordinatesId");
-        
-        if (coordinatesNode == null && coordinatesIdNode == null) {
-            errors.add("Ticket must have either coordinates object or coordinatesId");
-        } else if (coordinatesNode != null && !coordinatesNode.isNull()) {
-            errors.addAll(validateCoordinates(coordinatesNode));
-        }
-        
-        Long price = getRequiredLong(ticketNode.get("price"), "price", "ticket", errors);
-        if (price != null && price <= 0) {
-            errors.add("Ticket.price must be > 0, got: " + price);
-        }
-        
-        Double number = getRequiredDouble(ticketNode.get("number"), "number", "ticket", errors);
-        if (number != null && number <= 0) {
-            errors.add("Ticket.number must be > 0, got: " + number);
-        }
-        
-        JsonNode refundableNode = ticketNode.get("refundable");
-        if (refundableNode == null || !refundableNode.isBoolean()) {
-            errors.add("Ticket.refundable must be a boolean");
-        }
-        
-        JsonNode venueNode = ticketNode.get("venue");
-        JsonNode venueIdNode = ticketNode.get("venueId");
-        
-        if (venueNode == null && venueIdNode == null) {
+    private void bindVenue(JsonNode venueNode, TicketRecord ticket, List<String> errors) {
+        if (venueNode == null || venueNode.isNull()) {
             errors.add("Ticket must have either venue object or venueId");
-        } else if (venueNode != null && !venueNode.isNull()) {
-            errors.addAll(validateVenue(venueNode));
+            return;
         }
-        
-        JsonNode discountNode = ticketNode.get("discount");
-        if (discountNode != null && !discountNode.isNull() && discountNode.isNumber()) {
-            double discount = discountNode.asDouble();
-            if (discount <= 0 || discount > 100) {
-                errors.add("Ticket.discount must be between 0 and 100, got: " + discount);
-            }
-        }
-        
-        JsonNode typeNode = ticketNode.get("type");
-        if (typeNode != null && !typeNode.isNull() && typeNode.isTextual()) {
-            try {
-                TicketType.valueOf(typeNode.asText().toUpperCase());
-            } catch (IllegalArgumentException e) {
-                errors.add("Ticket.type must be one of: " + String.join(", ", TicketType.getNames()));
-            }
+        if (!venueNode.isObject()) {
+            errors.add("Venue must be an object");
+            return;
         }
-        
-        JsonNode personNode = ticketNode.get("person");
-        if (personNode != null && !personNode.isNull()) {
-            errors.addAll(validatePerson(personNode));
+
+        ticket.setVenueName(getRequiredText(venueNode.get("name"), "name", "venue", errors));
+
+        Integer capacity = getRequiredInt(venueNode.get("capacity"), "capacity", "venue", errors);
+        if (capacity != null && capacity <= 0) {
+            errors.add("Venue.capacity must be > 0, got: " + capacity);
+        } else if (capacity != null) {
+            ticket.setVenueCapacity(capacity);
         }
-        
-        JsonNode eventNode = ticketNode.get("event");
-        if (eventNode != null && !eventNode.isNull()) {
-            errors.addAll(validateEvent(eventNode));
+
+        if (hasValue(venueNode, "type")) {
+            ticket.setVenueType(VenueType.fromName(venueNode.get("type").asText()));
+            if (ticket.getVenueType() == null) {
+                errors.add("Venue.type must be one of: " + String.join(", ", VenueType.getNames()));
+            }
         }
-        
-        return errors;
     }
-}
\ No newline at end of file
+}
@@ -79,11 +79,20 @@ public class MinioService {
 
     public String uploadFile(String objectName, InputStream inputStream, 
                            String contentType, Map<String, String> metadata) {
+        return uploadFile(objectName, inputStream, -1, contentType, metadata);
+    }
+
+    /**
+     * Streams an object of known size. The client then picks the smallest part size that fits and
+     * holds one part at a time, 5 MiB for objects below 50 GiB.
+     */
+    public String uploadFile(String objectName, InputStream inputStream, long objectSize,
+                           String contentType, Map<String, String> metadata) {
         try {
             PutObjectArgs putObjectArgs = PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
-                    .stream(inputStream, -1, 10485760)
+                    .stream(inputStream, objectSize, objectSize < 0 ? 10485760 : -1)
                     .contentType(contentType)
                     .userMetadata(metadata)
                     .build();
@@ -166,6 +175,19 @@ public class MinioService {
         }
     }
 
+    public InputStream downloadRange(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            throw new MinioDownloadFileException(objectName, bucketName);
+        }
+    }
+
     public boolean safeDeleteFile(String objectName) {
         try {
             deleteFile(objectName);
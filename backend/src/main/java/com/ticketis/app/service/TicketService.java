@@ -19,6 +19,7 @@ import com.ticketis.app.repository.EventRepository;
 import com.ticketis.app.repository.PersonRepository;
 import com.ticketis.app.repository.TicketRepository;
 import com.ticketis.app.repository.VenueRepository;
+import com.ticketis.app.service.fileImport.TicketNameFilterService;
 import com.ticketis.app.specification.GenericSpecification;
 import jakarta.persistence.EntityManager;
 import java.util.List;
@@ -45,6 +46,7 @@ public class TicketService {
     private final PersonRepository personRepository;
     private final EventRepository eventRepository;
     private final VenueRepository venueRepository;
+    private final TicketNameFilterService nameFilterService;
 
     private final WebSocketEventController webSocketController;
 
@@ -112,6 +114,7 @@ public class TicketService {
         }
 
         ticket = ticketRepository.save(ticket);
+        nameFilterService.add(ticket.getName());
         return ticket.getId();
     }
 
@@ -144,6 +147,7 @@ public class TicketService {
                         .orElseThrow(() -> new VenueNotFoundException(request.venueId())));
 
         ticket = ticketRepository.save(ticket);
+        nameFilterService.add(ticket.getName());
         em.flush();
 
         WebSocketEvent event = new WebSocketEvent(WebSocketEventType.CREATED, ticket.getId());
@@ -181,6 +185,7 @@ public class TicketService {
                         .orElseThrow(() -> new VenueNotFoundException(request.venueId())));
 
         ticket = ticketRepository.save(ticket);
+        nameFilterService.add(ticket.getName());
         em.flush();
 
         WebSocketEvent event = new WebSocketEvent(WebSocketEventType.CREATED, ticket.getId());
@@ -219,6 +224,7 @@ public class TicketService {
                 .orElseThrow(() -> new VenueNotFoundException(request.venueId())));
 
         ticketRepository.save(ticket);
+        nameFilterService.add(ticket.getName());
 
         WebSocketEvent event = new WebSocketEvent(WebSocketEventType.UPDATED, id);
         webSocketController.sendTicketEvent(event);
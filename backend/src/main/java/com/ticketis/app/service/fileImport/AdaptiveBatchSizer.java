@@ -0,0 +1,112 @@
+package com.ticketis.app.service.fileImport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Picks async batch sizes from what workers actually achieved: a moving average of committed
+ * records per second and of the serialization abort rate per entity type. The batch size aims
+ * at a target transaction duration and shrinks as aborts become more frequent.
+ */
+@Slf4j
+@Service
+public class AdaptiveBatchSizer {
+
+    private static final double SMOOTHING = 0.2;
+
+    @Value("${app.import.batch.target-transaction-ms:2000}")
+    private long targetTransactionMs;
+
+    @Value("${app.import.batch.initial-size:5000}")
+    private int initialBatchSize;
+
+    @Value("${app.import.batch.min-size:500}")
+    private int minBatchSize;
+
+    @Value("${app.import.batch.max-size:50000}")
+    private int maxBatchSize;
+
+    // keep at least this many batches per import so the listener concurrency is used
+    @Value("${app.import.batch.min-batches:5}")
+    private int minBatches;
+
+    private final Map<String, Stats> statsByEntityType = new ConcurrentHashMap<>();
+
+    public int batchSizeFor(String entityType, int estimatedRecords) {
+        Stats stats = statsByEntityType.get(normalize(entityType));
+
+        int size;
+        if (stats == null || !stats.hasThroughput()) {
+            size = initialBatchSize;
+        } else {
+            double recordsPerSecond = stats.recordsPerSecond();
+            double abortRate = stats.abortRate();
+            size = (int) (recordsPerSecond * targetTransactionMs / 1000.0 * (1 - abortRate));
+            log.debug("Sizing {} batches from {} records/s and abort rate {}: {}",
+                    entityType, Math.round(recordsPerSecond), String.format("%.2f", abortRate), size);
+        }
+
+        size = Math.min(size, Math.max(1, estimatedRecords / minBatches));
+        return Math.max(minBatchSize, Math.min(size, maxBatchSize));
+    }
+
+    /**
+     * Committed records per second of one worker, or -1 before the first commit of the entity type.
+     */
+    public double recordsPerSecond(String entityType) {
+        Stats stats = statsByEntityType.get(normalize(entityType));
+        return stats == null || !stats.hasThroughput() ? -1 : stats.recordsPerSecond();
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public void recordCommit(String entityType, int records, long durationMs) {
+        stats(entityType).record(false, records, durationMs);
+    }
+
+    public void recordAbort(String entityType) {
+        stats(entityType).record(true, 0, 0);
+    }
+
+    private Stats stats(String entityType) {
+        return statsByEntityType.computeIfAbsent(normalize(entityType), key -> new Stats());
+    }
+
+    private String normalize(String entityType) {
+        return entityType == null ? "" : entityType.toLowerCase().trim();
+    }
+
+    private static class Stats {
+        private double recordsPerSecond = -1;
+        private double abortRate;
+
+        synchronized void record(boolean aborted, int records, long durationMs) {
+            abortRate += SMOOTHING * ((aborted ? 1 : 0) - abortRate);
+            if (aborted || records == 0) {
+                return;
+            }
+            double observed = records * 1000.0 / Math.max(1, durationMs);
+            recordsPerSecond = recordsPerSecond < 0
+                    ? observed
+                    : recordsPerSecond + SMOOTHING * (observed - recordsPerSecond);
+        }
+
+        synchronized boolean hasThroughput() {
+            return recordsPerSecond > 0;
+        }
+
+        synchronized double recordsPerSecond() {
+            return recordsPerSecond;
+        }
+
+        synchronized double abortRate() {
+            return abortRate;
+        }
+    }
+}
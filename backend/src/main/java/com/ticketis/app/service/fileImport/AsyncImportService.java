@@ -1,19 +1,24 @@
 package com.ticketis.app.service.fileImport;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.ticketis.app.dto.jms.ImportBatchEntity;
 import com.ticketis.app.dto.jms.ImportBatchMessage;
-import com.ticketis.app.model.ImportHistoryItem;
+import com.ticketis.app.model.enums.BatchStatus;
 import com.ticketis.app.model.enums.ImportStatus;
+import com.ticketis.app.util.ImportFileFormat;
+import com.ticketis.app.util.JsonParser.RecordRange;
 import jakarta.jms.Queue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @Service
 @Slf4j
@@ -25,83 +30,217 @@ public class AsyncImportService {
     private final ImportHistoryService historyService;
     private final ImportProgressTrackingService trackingService;
     private final ImportBatchService batchService;
+    private final AdaptiveBatchSizer batchSizer;
+    private final ImportDispatchWindow dispatchWindow;
 
-    public Long startAsyncImport(List<JsonNode> entities, String entityType, String filename, Long importHistoryId) {
+    // batch manifests stored and handed to the dispatcher at a time while the file is scanned
+    @Value("${app.import.dispatch.slab-batches:20}")
+    private int slabBatches;
 
-        log.info("Starting distributed import task: {} for {} entities", importHistoryId, entities.size());
+    public Long startAsyncImport(Path filePath, String entityType, Long importHistoryId, int estimatedRecords)
+            throws IOException {
 
-        historyService.updateStatus(importHistoryId, ImportStatus.PROCESSING,
-                String.format("Distributed import started. Processing %d records in batches", entities.size()));
+        int batchSize = batchSizer.batchSizeFor(entityType, estimatedRecords);
 
-        List<List<JsonNode>> batches = splitIntoBatches(entities);
+        log.info("Starting distributed import task: {} for ~{} entities (batch size: {})",
+                importHistoryId, estimatedRecords, batchSize);
 
-        sendBatchesToQueue(batches, entityType, importHistoryId);
-        trackingService.initializeProgress(importHistoryId, batches.size(), entities.size(), true);
+        historyService.updateStatus(importHistoryId, ImportStatus.PROCESSING,
+                String.format("Distributed import started. Streaming ~%d records in batches of %d",
+                        estimatedRecords, batchSize));
+
+        trackingService.initializeStreamingProgress(importHistoryId);
+
+        // batches are stored and sent in slabs while the scan goes on, workers start on the head of the file
+        BatchStream stream = new BatchStream(importHistoryId, 0, 0);
+        dispatchWindow.submit(stream::drain);
+
+        SlabWriter slabs = new SlabWriter(filePath, entityType, importHistoryId, estimatedRecords, batchSize, stream);
+        int totalRecords;
+        try {
+            // only byte ranges are collected, workers parse their own slice of the file
+            ImportFileFormat format = ImportFileFormat.of(filePath.getFileName().toString());
+            totalRecords = format.scanRecordRanges(filePath, batchSize, slabs::add);
+            slabs.flush();
+        } catch (IOException | RuntimeException e) {
+            stream.end(slabs.failTail());
+            throw e;
+        }
+        try {
+            historyService.recordTotalRecords(importHistoryId, totalRecords);
+        } finally {
+            stream.end(0);
+        }
 
-        log.info("Sent {} batches to queue for task: {}", batches.size(), importHistoryId);
+        log.info("Stored {} batches ({} records) for dispatch, task: {}", slabs.batchCount, totalRecords,
+                importHistoryId);
         return importHistoryId;
     }
 
-    private List<List<JsonNode>> splitIntoBatches(List<JsonNode> entities) {
-        int totalRecords = entities.size();
-        int batchSize = calculateBatchSize(totalRecords);
-
-        List<List<JsonNode>> batches = new ArrayList<>();
-        for (int i = 0; i < totalRecords; i += batchSize) {
-            int end = Math.min(i + batchSize, totalRecords);
-            batches.add(new ArrayList<>(entities.subList(i, end)));
+    /**
+     * Sends the batch messages through the import's dispatch window on a dispatcher thread. Batches of the
+     * import that are not in the list are counted as already dispatched.
+     */
+    public void dispatch(Long importHistoryId, List<ImportBatchMessage> messages) {
+        int skippedBatches = 0;
+        int skippedRecords = 0;
+        if (!messages.isEmpty()) {
+            skippedBatches = messages.get(0).getTotalBatches() - messages.size();
+            skippedRecords = messages.get(0).getTotalRecords()
+                    - messages.stream().mapToInt(ImportBatchMessage::getRecordCount).sum();
         }
-
-        log.info("Split {} records into {} batches (batch size: {})",
-                totalRecords, batches.size(), batchSize);
-        return batches;
+        BatchStream stream = new BatchStream(importHistoryId, skippedBatches, skippedRecords);
+        stream.send(messages);
+        stream.end(0);
+        dispatchWindow.submit(stream::drain);
     }
 
-    private int calculateBatchSize(int totalRecords) {
-        double percentage = 5 + (Math.random() * 5);
-        int batchSize = (int) (totalRecords * (percentage / 100));
-        return Math.max(1000, Math.min(batchSize, 50000));
-    }
+    /**
+     * Collects scanned record ranges and stores them as batch manifests a slab at a time, each slab is
+     * committed before its messages are handed to the dispatcher.
+     */
+    private class SlabWriter {
+        private final String fileName;
+        private final String entityType;
+        private final Long importHistoryId;
+        private final int estimatedBatches;
+        private final int estimatedRecords;
+        private final BatchStream stream;
+        private final List<RecordRange> slab = new ArrayList<>();
+        private int batchCount;
+        private int recordCount;
+        private long scannedBytes;
+
+        SlabWriter(Path filePath, String entityType, Long importHistoryId, int estimatedRecords, int batchSize,
+                BatchStream stream) {
+            this.fileName = filePath.getFileName().toString();
+            this.entityType = entityType;
+            this.importHistoryId = importHistoryId;
+            this.estimatedBatches = (estimatedRecords + batchSize - 1) / batchSize;
+            this.estimatedRecords = estimatedRecords;
+            this.stream = stream;
+        }
 
-    private void sendBatchesToQueue(List<List<JsonNode>> batches, String entityType, Long importHistoryId) {
-        int totalBatches = batches.size();
-        int totalRecords = batches.stream().mapToInt(List::size).sum();
+        void add(RecordRange range) {
+            slab.add(range);
+            if (slab.size() >= slabBatches) {
+                flush();
+            }
+        }
 
-        for (int i = 0; i < batches.size(); i++) {
-            ImportBatchEntity batchEntity = createBatch(
-                    importHistoryId,
-                    i + 1,
-                    batches.get(i));
+        void flush() {
+            if (slab.isEmpty()) {
+                return;
+            }
+            List<ImportBatchEntity> batches = batchService.createBatches(importHistoryId, slab, batchCount + 1);
+            List<ImportBatchMessage> messages = new ArrayList<>(batches.size());
+            for (ImportBatchEntity batch : batches) {
+                batchCount++;
+                recordCount += batch.getTotalRecords();
+                scannedBytes = batch.getByteOffset() + batch.getByteLength();
+                // totals are estimates while the file is still being scanned
+                messages.add(new ImportBatchMessage(
+                        batch.getId(),
+                        importHistoryId,
+                        entityType,
+                        fileName,
+                        batch.getFirstRecord(),
+                        batch.getTotalRecords(),
+                        batch.getByteOffset(),
+                        batch.getByteLength(),
+                        batch.getBatchNumber(),
+                        Math.max(estimatedBatches, batchCount),
+                        Math.max(estimatedRecords, recordCount)));
+            }
+            slab.clear();
+            stream.send(messages);
+        }
+
+        /**
+         * Stores the part of the file the scan could not read as one failed batch, so an import whose
+         * head was already sent cannot finish as a success.
+         *
+         * @return the number of failed batches added
+         */
+        int failTail() {
+            try {
+                RecordRange tail = new RecordRange(recordCount, 0, scannedBytes, 0);
+                ImportBatchEntity batch = batchService.createBatches(importHistoryId, List.of(tail),
+                        batchCount + 1).get(0);
+                batchService.updateStatus(batch.getId(), BatchStatus.FAILED);
+                trackingService.updateBatchProgress(importHistoryId, batch.getId(), 0, 1, BatchStatus.FAILED);
+                return 1;
+            } catch (RuntimeException e) {
+                log.error("Could not record the unread tail of task {}: {}", importHistoryId, e.getMessage());
+                return 0;
+            }
+        }
+    }
 
-            ImportBatchMessage batchMessage = new ImportBatchMessage(
-                    batchEntity.getId(),
-                    importHistoryId,
-                    entityType,
-                    batches.get(i),
-                    i + 1,
-                    totalBatches,
-                    totalRecords);
+    /**
+     * Batch messages of one import on their way to the queue. The producer adds messages while the
+     * dispatcher thread sends them through the import's credit window; dispatch is completed once the
+     * producer ended the stream and everything before the end was sent.
+     */
+    private class BatchStream {
+        private final Long importHistoryId;
+        private final int skippedBatches;
+        private final int skippedRecords;
+        private final BlockingQueue<List<ImportBatchMessage>> pending = new LinkedBlockingQueue<>();
+        private volatile int failedBatches;
+
+        BatchStream(Long importHistoryId, int skippedBatches, int skippedRecords) {
+            this.importHistoryId = importHistoryId;
+            this.skippedBatches = skippedBatches;
+            this.skippedRecords = skippedRecords;
+        }
 
-            jmsTemplate.convertAndSend(importBatchQueue, batchMessage);
+        void send(List<ImportBatchMessage> messages) {
+            pending.add(messages);
+        }
 
-            log.debug("Sent batch {}/{} to queue. Batch size: {}", i + 1, totalBatches, batches.get(i).size());
+        void end(int failedBatches) {
+            this.failedBatches = failedBatches;
+            pending.add(List.of());
         }
-    }
 
-    @Transactional
-    private ImportBatchEntity createBatch(Long importHistoryId, int batchNumber, List<JsonNode> records) {
-        ImportHistoryItem importHistoryItem = historyService.getImportItemById(importHistoryId);
-
-        ImportBatchEntity batchEntity = new ImportBatchEntity();
-        batchEntity.setImportHistoryItem(importHistoryItem);
-        batchEntity.setBatchNumber(batchNumber);
-        batchEntity.setBatchSize(records.size());
-        batchEntity.setBatchStatus(ImportStatus.PENDING.name());
-        batchEntity.setRecords(records);
-        batchEntity.setTotalRecords(records.size());
-        batchEntity.setProcessedRecords(0);
-
-        ImportBatchEntity savedBatch = batchService.createBatch(batchEntity);        
-        return savedBatch;
+        void drain() {
+            int sentBatches = 0;
+            int sentRecords = 0;
+            boolean sending = true;
+            ImportDispatchWindow.Credits credits = dispatchWindow.open(importHistoryId);
+            try {
+                for (List<ImportBatchMessage> messages = pending.take(); !messages.isEmpty();
+                        messages = pending.take()) {
+                    // after a failed send the rest is only drained, the stream still has to reach its end
+                    for (int i = 0; sending && i < messages.size(); i++) {
+                        ImportBatchMessage batchMessage = messages.get(i);
+                        credits.acquire();
+                        try {
+                            jmsTemplate.convertAndSend(importBatchQueue, batchMessage);
+                        } catch (RuntimeException e) {
+                            credits.unsent();
+                            log.error("Dispatch of task {} failed after {} batches: {}", importHistoryId,
+                                    sentBatches, e.getMessage());
+                            sending = false;
+                            break;
+                        }
+
+                        sentBatches++;
+                        sentRecords += batchMessage.getRecordCount();
+                        log.debug("Sent batch {} to queue. Batch size: {}", batchMessage.getBatchNumber(),
+                                batchMessage.getRecordCount());
+                    }
+                }
+                log.info("Sent {} batches ({} records) to queue for task: {}", sentBatches, sentRecords,
+                        importHistoryId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Dispatch of task {} interrupted after {} batches", importHistoryId, sentBatches);
+            } finally {
+                trackingService.completeDispatch(importHistoryId, skippedBatches + sentBatches + failedBatches,
+                        skippedRecords + sentRecords);
+            }
+        }
     }
-}
\ No newline at end of file
+}
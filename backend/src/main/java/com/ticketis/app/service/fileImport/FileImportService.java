@@ -2,6 +2,7 @@ package com.ticketis.app.service.fileImport;
 
 import com.ticketis.app.controller.WebSocketEventController;
 import com.ticketis.app.dto.ImportWebSocketEvent;
+import com.ticketis.app.dto.jms.ImportProgress;
 import com.ticketis.app.dto.response.ImportResponse;
 import com.ticketis.app.exception.*;
 import com.ticketis.app.exception.importBusinessException.FileImportValidationException;
@@ -9,14 +10,19 @@ import com.ticketis.app.exception.importBusinessException.ImportBusinessExceptio
 import com.ticketis.app.exception.importBusinessException.UnableToGetNecessaryFieldException;
 import com.ticketis.app.model.ImportHistoryItem;
 import com.ticketis.app.model.ImportResult;
+import com.ticketis.app.model.StoredUpload;
 import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.model.enums.WebSocketEventType;
 import com.ticketis.app.service.ImportValidator;
+import com.ticketis.app.util.ImportFileFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.RollbackException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.GenericJDBCException;
 import org.postgresql.util.PSQLException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,7 +30,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -37,47 +49,152 @@ public class FileImportService {
     private final FileOutboxService outboxService;
     private final WebSocketEventController webSocketEventController;
     private final ImportValidator validator;
+    private final ImportProgressTrackingService trackingService;
+
+    // imports of stored uploads run here instead of on the request thread
+    @Value("${app.import.executor.threads:2}")
+    private int executorThreads;
+
+    @Value("${app.import.executor.queue-capacity:100}")
+    private int executorQueueCapacity;
+
+    private ThreadPoolExecutor importExecutor;
 
     public Page<ImportHistoryItem> getImportsPage(Pageable pageable) {
         return historyService.getImportsPage(pageable);
     }
 
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        importExecutor = new ThreadPoolExecutor(executorThreads, executorThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(executorQueueCapacity), r -> {
+                    Thread t = new Thread(r, "import-executor-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        log.info("Import executor started with {} threads and room for {} queued imports",
+                executorThreads, executorQueueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // queued imports keep FILE_UPLOADED and are queued again on startup
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * Stores the upload and queues its import. Returns as soon as the file and its outbox event are
+     * stored, parsing and persisting happen on the import executor and are reported over WebSocket.
+     */
     public ImportResponse importFile(MultipartFile file, String entityType) {
+        // the stored file keeps an extension, workers pick the parser by it
+        ImportFileFormat format = ImportFileFormat.detect(file.getOriginalFilename(), file.getContentType());
+        String filename = format != null
+                ? format.withExtension(file.getOriginalFilename())
+                : file.getOriginalFilename();
         ImportHistoryItem importItem = historyService.createPendingImport(
-                file.getOriginalFilename(),
+                filename,
                 entityType);
 
         try {
             validator.validateFile(file);
 
-            Path tmpFilePath = fileStorageService.storeFile(file, importItem.getFilename(), importItem.getId());
+            StoredUpload upload = fileStorageService.storeFile(file, importItem.getFilename());
+            importItem.setContentHash(upload.getContentHash());
 
-            outboxService.createUploadEvent(importItem.getId(), importItem.getFilename(), String.valueOf(tmpFilePath));
+            outboxService.createUploadEvent(importItem.getId(), importItem.getFilename(),
+                    String.valueOf(upload.getPath()));
 
-            ImportResult result = orchestratorService.startImport(importItem.getFilename(), entityType);
-            String statusMessage = result.getMessage();
+            String statusMessage = "File uploaded, import queued";
+            Optional<ImportHistoryItem> previous = historyService.recordContentHash(importItem.getId(),
+                    upload.getContentHash());
+            if (previous.isPresent()) {
+                statusMessage += "; same content as import " + previous.get().getId();
+                log.info("Upload of import {} is identical to import {}", importItem.getId(), previous.get().getId());
+            }
+            historyService.updateStatus(importItem.getId(), ImportStatus.FILE_UPLOADED, statusMessage);
+            queueImport(importItem);
 
             return new ImportResponse(
                     importItem.getFilename(),
-                    file.getSize(),
+                    upload.getSize(),
                     statusMessage,
                     entityType,
-                    result.getProcessedCount(),
-                    result.getErrorCount(),
-                    result.getImportHistoryId(),
-                    result.isAsync(),
-                    result.getTotalRecords());
+                    null,
+                    null,
+                    importItem.getId(),
+                    true,
+                    null);
 
         } catch (ImportBusinessException e) {
             handleBusinessError(importItem, e);
             throw e;
 
+        } catch (RejectedExecutionException e) {
+            failImport(importItem, "Import queue is full, try again later");
+            throw new FailedToProcessImportException("Import queue is full, try again later");
+
         } catch (Exception e) {
             handleSystemError(importItem, e);
             throw new FailedToProcessImportException("System error during import");
         }
     }
 
+    /**
+     * Runs the import of a stored upload on the import executor.
+     *
+     * @return false if the import is already tracked, e.g. queued on another node
+     * @throws RejectedExecutionException if the executor queue is full
+     */
+    public boolean queueImport(ImportHistoryItem importItem) {
+        ImportProgress claim = trackingService.claim(importItem.getId());
+        if (claim == null) {
+            return false;
+        }
+        webSocketEventController.sendImportEvent(
+                new ImportWebSocketEvent(WebSocketEventType.IMPORT_TASK_INITIALIZED, importItem.getId()));
+        // the outbox would otherwise remove the local copy while the import waits or reads it
+        fileStorageService.pin(importItem.getFilename());
+        try {
+            importExecutor.execute(() -> runImport(importItem, claim));
+        } catch (RejectedExecutionException e) {
+            trackingService.releaseClaim(claim);
+            unpin(importItem);
+            throw e;
+        }
+        return true;
+    }
+
+    private void runImport(ImportHistoryItem importItem, ImportProgress claim) {
+        try {
+            // only gone if the upload reached MinIO before a restart, pinned copies stay in place
+            fileStorageService.restoreLocalCopy(importItem.getFilename(), importItem.getContentHash());
+
+            ImportResult result = orchestratorService.startImport(importItem.getFilename(),
+                    importItem.getEntityType());
+            log.info("Import {} finished on executor: {}", importItem.getId(), result.getMessage());
+
+        } catch (ImportBusinessException e) {
+            handleBusinessError(importItem, e);
+
+        } catch (Exception e) {
+            recordSystemError(importItem, e);
+        } finally {
+            trackingService.releaseClaim(claim);
+            // distributed imports dispatched by now read their ranges from MinIO once the copy is gone
+            unpin(importItem);
+        }
+    }
+
+    private void unpin(ImportHistoryItem importItem) {
+        try {
+            fileStorageService.unpin(importItem.getFilename());
+        } catch (IOException e) {
+            log.warn("Could not remove local copy of {}: {}", importItem.getFilename(), e.getMessage());
+        }
+    }
+
     private void handleBusinessError(ImportHistoryItem importItem, ImportBusinessException e) {
         ImportStatus status = determineStatusFromException(e);
         String errorMessage = e.getMessage();
@@ -98,9 +215,25 @@ public class FileImportService {
     }
 
     private void handleSystemError(ImportHistoryItem importItem, Exception e) {
+        String errorMessage = recordSystemError(importItem, e);
+
+        if (extractDatabaseErrorMessage(e) != null && isDatabaseConstraintError(e)) {
+            throw new DataIntegrityViolationException(errorMessage, e);
+        } else {
+            throw new FailedToProcessImportException(errorMessage);
+        }
+    }
+
+    private String recordSystemError(ImportHistoryItem importItem, Exception e) {
         String detailedMessage = extractDatabaseErrorMessage(e);
         String errorMessage = detailedMessage != null ? detailedMessage : "System error: " + e.getMessage();
 
+        failImport(importItem, errorMessage);
+        log.error("System error during import {}: {}", importItem.getId(), errorMessage);
+        return errorMessage;
+    }
+
+    private void failImport(ImportHistoryItem importItem, String errorMessage) {
         ImportHistoryItem currentItem = historyService.getImportItemById(importItem.getId());
         if (currentItem.getImportStatus() != ImportStatus.FAILED) {
             historyService.updateStatus(importItem.getId(), ImportStatus.FAILED, errorMessage);
@@ -108,14 +241,6 @@ public class FileImportService {
                     importItem.getId());
             webSocketEventController.sendImportEvent(event);
         }
-
-        log.error("System error during import {}: {}", importItem.getId(), errorMessage);
-
-        if (detailedMessage != null && isDatabaseConstraintError(e)) {
-            throw new DataIntegrityViolationException(errorMessage, e);
-        } else {
-            throw new FailedToProcessImportException(errorMessage);
-        }
     }
 
     private String extractDatabaseErrorMessage(Throwable throwable) {
@@ -1,42 +1,200 @@
 package com.ticketis.app.service.fileImport;
 
+import com.ticketis.app.model.StoredUpload;
+import com.ticketis.app.service.MinioService;
+import com.ticketis.app.util.LineRanges;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
+
+    // a header row is far shorter, ranges past the end of an object are cut to its size
+    private static final long HEADER_PROBE_BYTES = 64 * 1024;
+
+    private final MinioService minioService;
     
     @Value("${app.import.upload-dir:uploads/import}")
     private String uploadDir;
 
-    public Path storeFile(MultipartFile file, String uniqueFilename, Long importHistoryId) throws IOException {
+    @Value("${app.import.upload.buffer-size:262144}")
+    private int bufferSize;
+
+    // uploads an import on this node still reads by path, their local copy outlives the MinIO upload
+    private final Map<String, Integer> pinned = new HashMap<>();
+    // pinned uploads that are already in MinIO, deleted when the last pin is released
+    private final Set<String> uploaded = new HashSet<>();
+
+    /**
+     * Writes an upload to the local upload directory through a direct buffer, hashing it in the same
+     * pass. The file is forced to disk before returning, so the upload survives a crash.
+     */
+    public StoredUpload storeFile(MultipartFile file, String uniqueFilename) throws IOException {
         Path uploadPath = Paths.get(uploadDir);
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
         Path filePath = uploadPath.resolve(uniqueFilename);
-        
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        log.info("File stored locally: {}", uniqueFilename);
 
-        return filePath;
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        long size = 0;
+        try (ReadableByteChannel input = Channels.newChannel(file.getInputStream());
+                FileChannel output = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (input.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    size += output.write(buffer);
+                }
+                buffer.clear();
+            }
+            output.force(false);
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        log.info("File stored locally: {} ({} bytes, sha256 {})", uniqueFilename, size, contentHash);
+
+        return new StoredUpload(filePath, size, contentHash);
+    }
+
+    /**
+     * Keeps the local copy of an upload until {@link #unpin} even if it reaches MinIO meanwhile.
+     */
+    public void pin(String filename) {
+        synchronized (pinned) {
+            pinned.merge(filename, 1, Integer::sum);
+        }
+    }
+
+    public void unpin(String filename) throws IOException {
+        synchronized (pinned) {
+            if (pinned.merge(filename, -1, Integer::sum) > 0) {
+                return;
+            }
+            pinned.remove(filename);
+            if (!uploaded.remove(filename)) {
+                return;
+            }
+        }
+        deleteFile(filename);
+        log.debug("Deleted local copy of {} after its import released it", filename);
+    }
+
+    /**
+     * Removes the local copy of an upload that reached MinIO, or once it is unpinned.
+     */
+    public void deleteUploadedCopy(String filename) throws IOException {
+        synchronized (pinned) {
+            if (pinned.containsKey(filename)) {
+                uploaded.add(filename);
+                return;
+            }
+        }
+        deleteFile(filename);
     }
 
     public Path getFilePath(String filename) {
         return Paths.get(uploadDir).resolve(filename);
     }
 
+    /**
+     * Opens a byte range of a stored upload. The local copy is removed once it reaches MinIO,
+     * so the range is fetched from there when the file is gone.
+     */
+    public InputStream openRange(String filename, long offset, long length) throws IOException {
+        Path filePath = getFilePath(filename);
+        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
+            byte[] content = new byte[Math.toIntExact(length)];
+            file.seek(offset);
+            file.readFully(content);
+            return new ByteArrayInputStream(content);
+        } catch (FileNotFoundException e) {
+            log.debug("Local copy of {} is gone, reading range from MinIO", filename);
+            return minioService.downloadRange(filename, offset, length);
+        }
+    }
+
+    /**
+     * Header row of a stored CSV upload, read from MinIO when the local copy is gone.
+     */
+    public String readFirstLine(String filename) throws IOException {
+        Path filePath = getFilePath(filename);
+        if (Files.exists(filePath)) {
+            try (InputStream input = Files.newInputStream(filePath)) {
+                return LineRanges.readFirstLine(input);
+            }
+        }
+        log.debug("Local copy of {} is gone, reading header from MinIO", filename);
+        try (InputStream input = minioService.downloadRange(filename, 0, HEADER_PROBE_BYTES)) {
+            return LineRanges.readFirstLine(input);
+        }
+    }
+
+    /**
+     * Downloads a stored upload from MinIO when its local copy was already removed. The download is
+     * checked against the hash taken when the upload was stored, if there is one. A pinned restored
+     * copy is removed again when it is unpinned.
+     *
+     * @return whether the local copy had to be restored
+     */
+    public boolean restoreLocalCopy(String filename, String expectedHash) throws IOException {
+        Path filePath = getFilePath(filename);
+        if (Files.exists(filePath)) {
+            return false;
+        }
+        log.info("Local copy of {} is gone, restoring it from MinIO", filename);
+        Files.createDirectories(filePath.getParent());
+        MessageDigest digest = newDigest();
+        try (InputStream input = new DigestInputStream(minioService.downloadFile(filename), digest)) {
+            Files.copy(input, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        if (expectedHash != null && !expectedHash.equals(contentHash)) {
+            Files.deleteIfExists(filePath);
+            throw new IOException("Content of " + filename + " in MinIO does not match the stored upload");
+        }
+        deleteUploadedCopy(filename);
+        return true;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public void deleteFile(String filename) throws IOException {
         Path filePath = getFilePath(filename);
         if (Files.exists(filePath)) {
@@ -1,25 +1,63 @@
 package com.ticketis.app.service.fileImport;
 
 import com.ticketis.app.dto.jms.ImportBatchEntity;
+import com.ticketis.app.dto.sql.BatchStatusCount;
 import com.ticketis.app.exception.notfoundexception.FileImportRecordNotFoundException;
+import com.ticketis.app.model.enums.BatchStatus;
+import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.repository.ImportBatchRepository;
+import com.ticketis.app.repository.ImportBulkRepository;
+import com.ticketis.app.util.JsonParser.RecordRange;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ImportBatchService {
 
     private final ImportBatchRepository batchRepository;
+    private final ImportBulkRepository bulkRepository;
 
     public ImportBatchEntity createBatch(ImportBatchEntity batch) {
         return batchRepository.save(batch);
     }
 
+    @Transactional
+    public List<ImportBatchEntity> createBatches(Long importHistoryId, List<RecordRange> ranges,
+            int firstBatchNumber) {
+        List<ImportBatchEntity> batches = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            RecordRange range = ranges.get(i);
+            ImportBatchEntity batch = new ImportBatchEntity();
+            batch.setBatchNumber(firstBatchNumber + i);
+            batch.setBatchSize(range.recordCount());
+            batch.setBatchStatus(ImportStatus.PENDING.name());
+            batch.setTotalRecords(range.recordCount());
+            batch.setProcessedRecords(0);
+            batch.setFirstRecord(range.firstRecord());
+            batch.setByteOffset(range.byteOffset());
+            batch.setByteLength(range.byteLength());
+            batches.add(batch);
+        }
+
+        List<Long> ids = bulkRepository.allocateIds("import_batches", batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            batches.get(i).setId(ids.get(i));
+        }
+        bulkRepository.insertImportBatches(importHistoryId, batches);
+        return batches;
+    }
+
     public ImportBatchEntity getBatchById(Long id) {
          return batchRepository.findById(id)
                 .orElseThrow(() -> new FileImportRecordNotFoundException(id));
@@ -38,5 +76,47 @@ public class ImportBatchService {
     public ImportBatchEntity saveBatch(ImportBatchEntity batch) {
         return batchRepository.save(batch);
     }
+
+    @Transactional
+    public boolean updateStatus(Long id, BatchStatus status, int processedRecords) {
+        return batchRepository.updateStatus(id, status.name(), processedRecords) > 0;
+    }
+
+    @Transactional
+    public boolean updateStatus(Long id, BatchStatus status) {
+        return batchRepository.updateStatus(id, status.name()) > 0;
+    }
+
+    // progress is reported from inside the import transaction and has to be visible before it commits
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean updateProcessedRecords(Long id, int processedRecords) {
+        return batchRepository.updateProcessedRecords(id, processedRecords) > 0;
+    }
+
+    /**
+     * Moves the batch checkpoint from {@code from} to {@code to}. Joins the import transaction, so the
+     * checkpoint commits together with the records. Slices that do not start at the checkpoint leave
+     * it unchanged and are replayed on resume, up to the replay offset that every slice extends.
+     */
+    @Transactional
+    public boolean advanceCheckpoint(Long id, int from, int to, int processedRecords) {
+        batchRepository.extendReplayOffset(id, to);
+        return batchRepository.advanceCheckpoint(id, from, to, processedRecords) > 0;
+    }
+
+    public Map<BatchStatus, Long> countBatchesByStatus(Long importHistoryItemId) {
+        Map<BatchStatus, Long> counts = new EnumMap<>(BatchStatus.class);
+        for (BatchStatusCount count : batchRepository.countByStatus(importHistoryItemId)) {
+            if (count.batchStatus() == null) {
+                continue;
+            }
+            try {
+                counts.merge(BatchStatus.valueOf(count.batchStatus()), count.batchCount(), Long::sum);
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown batch status: {} for import {}", count.batchStatus(), importHistoryItemId);
+            }
+        }
+        return counts;
+    }
     
 }
@@ -1,30 +1,45 @@
 package com.ticketis.app.service.fileImport;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.ticketis.app.controller.WebSocketEventController;
 import com.ticketis.app.dto.ImportWebSocketEvent;
-import com.ticketis.app.dto.jms.ImportBatchEntity;
 import com.ticketis.app.dto.jms.ImportBatchMessage;
+import com.ticketis.app.dto.jms.ImportBatchMessage.RecordSlice;
+import com.ticketis.app.importProcessor.BatchImportResult;
 import com.ticketis.app.importProcessor.ImportProcessor;
+import com.ticketis.app.importProcessor.ValidatedChunk;
 import com.ticketis.app.model.enums.BatchStatus;
 import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.model.enums.WebSocketEventType;
+import com.ticketis.app.util.ImportFileFormat;
+import jakarta.jms.Queue;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.api.core.Message;
 import org.hibernate.JDBCException;
 import org.postgresql.util.PSQLException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import javax.sql.DataSource;
 
 @Service
 @Slf4j
@@ -37,33 +52,203 @@ public class ImportBatchWorker {
         private final ImportHistoryService historyService;
         private final ImportBatchService batchService;
         private final WebSocketEventController webSocketController;
+        private final FileStorageService fileStorageService;
+        private final AdaptiveBatchSizer batchSizer;
+        private final ImportValidationStage validationStage;
+        private final ImportDispatchWindow dispatchWindow;
+        private final DataSource dataSource;
+        private final JmsTemplate jmsTemplate;
+        private final Queue importBatchQueue;
+        private final Queue importBatchDeadLetterQueue;
+
+        @Value("${app.import.savepoint-isolation:true}")
+        private boolean savepointIsolation;
+
+        @Value("${app.import.retry.max-attempts:10}")
+        private int maxAttempts;
+
+        @Value("${app.import.retry.resplit-after-attempts:3}")
+        private int resplitAfterAttempts;
+
+        @Value("${app.import.retry.initial-delay-ms:100}")
+        private long initialRetryDelayMs;
+
+        @Value("${app.import.retry.multiplier:2.0}")
+        private double retryMultiplier;
+
+        @Value("${app.import.retry.max-delay-ms:10000}")
+        private long maxRetryDelayMs;
 
         @JmsListener(destination = "import.batch.queue", containerFactory = "queueListenerFactory")
         public void processBatch(ImportBatchMessage batchMessage) {
                 try {
-                        log.info("Processing batch {}/{} for task: {}",
+                        log.info("Processing batch {}/{} for task: {} (attempt {})",
                                         batchMessage.getBatchNumber(), batchMessage.getTotalBatches(),
-                                        batchMessage.getImportHistoryId());
+                                        batchMessage.getImportHistoryId(), batchMessage.getAttempt());
+
+                        if (!batchMessage.isRetry()) {
+                                updateBatchStatus(batchMessage.getBatchId(), BatchStatus.PROCESSING,
+                                                batchMessage.getProcessedRecords());
+                        }
 
-                        updateBatchStatus(batchMessage.getBatchId(), BatchStatus.PROCESSING, 0);
+                        List<JsonNode> records = readRecords(batchMessage);
+                        ProcessResult result = processBatchData(batchMessage, records);
 
-                        ProcessResult result = processBatchData(batchMessage);
+                        if (!result.getDeferred().isEmpty() && scheduleRetry(batchMessage, result)) {
+                                return;
+                        }
 
                         updateFinalStatus(batchMessage, result);
 
                         log.info("Finished processing batch {} with {}/{} successful records",
                                         batchMessage.getBatchId(), result.getSuccessCount(),
-                                        batchMessage.getRecords().size());
-
-                        refreshHistoryStatus(batchMessage.getImportHistoryId());
+                                        batchMessage.getRecordCount());
 
                 } catch (Exception e) {
                         log.error("Failed to process batch {}: {}", batchMessage.getBatchId(), e.getMessage());
                         markBatchAsFailed(batchMessage, e.getMessage());
+                } finally {
+                        // finished batches are counted in the progress cache, waiting dispatchers look again
+                        dispatchWindow.batchFinished();
+                }
+        }
+
+        private List<JsonNode> readRecords(ImportBatchMessage batchMessage) throws IOException {
+                ImportFileFormat format = ImportFileFormat.of(batchMessage.getFileName());
+                String header = format.hasHeader() ? fileStorageService.readFirstLine(batchMessage.getFileName()) : null;
+                try (InputStream slice = fileStorageService.openRange(batchMessage.getFileName(),
+                                batchMessage.getByteOffset(), batchMessage.getByteLength())) {
+                        List<JsonNode> records = format.parseRecords(slice, header);
+                        if (records.size() != batchMessage.getRecordCount()) {
+                                throw new IOException(String.format("Expected %d records in batch %d, read %d",
+                                                batchMessage.getRecordCount(), batchMessage.getBatchNumber(),
+                                                records.size()));
+                        }
+                        return records;
+                }
+        }
+
+        public ProcessResult processBatchData(ImportBatchMessage batchMessage, List<JsonNode> records) {
+                ImportProcessor processor = processorDispatcher.findProcessor(batchMessage.getEntityType());
+                List<RecordSlice> slices = batchMessage.getRetrySlices() != null
+                                ? batchMessage.getRetrySlices()
+                                : List.of(new RecordSlice(0, records.size()));
+
+                int successCount = batchMessage.getProcessedRecords();
+                List<String> errors = new ArrayList<>();
+                List<RecordSlice> deferred = new ArrayList<>();
+                for (RecordSlice slice : slices) {
+                        ValidatedChunk chunk = validationStage.validate(processor,
+                                        records.subList(slice.from(), slice.to()),
+                                        batchMessage.getFirstRecord() + slice.from());
+                        errors.addAll(chunk.getErrors());
+
+                        if (chunk.size() == 0) {
+                                batchService.advanceCheckpoint(batchMessage.getBatchId(), slice.from(), slice.to(),
+                                                successCount);
+                                continue;
+                        }
+                        ProcessResult result = processSlice(batchMessage, chunk, slice, 0, chunk.size(), successCount,
+                                        deferred);
+                        successCount += result.getSuccessCount();
+                        errors.addAll(result.getErrors());
+                }
+                return new ProcessResult(successCount, errors, deferred);
+        }
+
+        // serialization failures are not retried here, the slice is deferred to a scheduled redelivery.
+        // A batch that keeps aborting is split in halves, each its own transaction
+        private ProcessResult processSlice(ImportBatchMessage batchMessage, ValidatedChunk chunk, RecordSlice bounds,
+                        int from, int to, int processedBefore, List<RecordSlice> deferred) {
+                if (from == to) {
+                        return new ProcessResult(0, List.of());
+                }
+
+                long started = System.currentTimeMillis();
+                try {
+                        ProcessResult result = importBatchRecords(batchMessage, chunk, bounds, from, to,
+                                        processedBefore);
+                        batchSizer.recordCommit(batchMessage.getEntityType(), to - from,
+                                        System.currentTimeMillis() - started);
+                        return result;
+                } catch (Exception e) {
+                        if (!isSerializableException(e)) {
+                                log.error("Failed to import batch {}/{} on attempt {}: {}",
+                                                batchMessage.getBatchNumber(), batchMessage.getTotalBatches(),
+                                                batchMessage.getAttempt(), e.getMessage());
+                                List<String> errors = new ArrayList<>();
+                                errors.add("Batch " + batchMessage.getBatchNumber() + ": " + e.getMessage());
+                                return new ProcessResult(0, errors);
+                        }
+                        batchSizer.recordAbort(batchMessage.getEntityType());
+
+                        if (batchMessage.getAttempt() >= resplitAfterAttempts
+                                        && to - from > batchSizer.getMinBatchSize()) {
+                                int middle = from + (to - from) / 2;
+                                log.warn("Batch {} records {}-{} aborted on attempt {}, splitting at {}",
+                                                batchMessage.getBatchId(), from, to, batchMessage.getAttempt(), middle);
+                                ProcessResult left = processSlice(batchMessage, chunk, bounds, from, middle,
+                                                processedBefore, deferred);
+                                ProcessResult right = processSlice(batchMessage, chunk, bounds, middle, to,
+                                                processedBefore + left.getSuccessCount(), deferred);
+                                List<String> errors = new ArrayList<>(left.getErrors());
+                                errors.addAll(right.getErrors());
+                                return new ProcessResult(left.getSuccessCount() + right.getSuccessCount(), errors);
+                        }
+
+                        log.debug("Serialization failure for batch {} records {}-{}, deferring to redelivery",
+                                        batchMessage.getBatchId(), from, to);
+                        deferred.add(new RecordSlice(recordOffset(batchMessage, chunk, bounds, from),
+                                        recordOffset(batchMessage, chunk, bounds, to)));
+                        return new ProcessResult(0, List.of());
+                }
+        }
+
+        /**
+         * Sends the deferred slices back to the queue with a scheduled delivery time, or to the dead letter
+         * queue once the attempts are used up. Returns false when the batch should be finished now.
+         */
+        private boolean scheduleRetry(ImportBatchMessage batchMessage, ProcessResult result) {
+                ImportBatchMessage retry = batchMessage.nextAttempt(result.getDeferred(), result.getSuccessCount());
+                int deferredRecords = result.getDeferred().stream().mapToInt(slice -> slice.to() - slice.from()).sum();
+
+                if (retry.getAttempt() > maxAttempts) {
+                        log.error("Batch {} gave up on {} records after {} attempts, sent to {}",
+                                        batchMessage.getBatchId(), deferredRecords, batchMessage.getAttempt(),
+                                        importBatchDeadLetterQueue);
+                        jmsTemplate.convertAndSend(importBatchDeadLetterQueue, retry);
+                        return false;
+                }
+
+                long delayMs = Math.min(maxRetryDelayMs,
+                                (long) (initialRetryDelayMs * Math.pow(retryMultiplier, batchMessage.getAttempt() - 1)));
+                // the send joins the listener's transacted session, so it commits together with the acknowledgement
+                jmsTemplate.convertAndSend(importBatchQueue, retry, message -> {
+                        message.setLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME.toString(),
+                                        System.currentTimeMillis() + delayMs);
+                        return message;
+                });
+                updateBatchProgress(batchMessage.getBatchId(), result.getSuccessCount());
+
+                log.warn("Batch {}: {} records hit serialization failures, attempt {} scheduled in {} ms",
+                                batchMessage.getBatchId(), deferredRecords, retry.getAttempt(), delayMs);
+                return true;
+        }
+
+        // offset within the batch of a chunk position, invalid records before the next valid one belong to it
+        private int recordOffset(ImportBatchMessage batchMessage, ValidatedChunk chunk, RecordSlice bounds,
+                        int index) {
+                if (index == 0) {
+                        return bounds.from();
+                }
+                if (index == chunk.size()) {
+                        return bounds.to();
                 }
+                return chunk.getRecordIndices().get(index) - batchMessage.getFirstRecord();
         }
 
-        public ProcessResult processBatchData(ImportBatchMessage batchMessage) {
+        private ProcessResult importBatchRecords(ImportBatchMessage batchMessage, ValidatedChunk chunk,
+                        RecordSlice bounds, int sliceFrom, int sliceTo, int processedBefore) {
                 TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
                 transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
                 transactionTemplate.setReadOnly(false);
@@ -72,229 +257,225 @@ public class ImportBatchWorker {
                         ImportProcessor processor = processorDispatcher.findProcessor(batchMessage.getEntityType());
                         List<String> errors = new ArrayList<>();
                         int successCount = 0;
-
-                        for (int i = 0; i < batchMessage.getRecords().size(); i++) {
-                                try {
-                                        List<String> recordErrors = retryImportEntity(processor,
-                                                        batchMessage.getRecords().get(i), i);
-
-                                        if (recordErrors.isEmpty()) {
-                                                successCount++;
-                                        } else {
-                                                errors.addAll(recordErrors);
-                                        }
-
-                                        if (i > 0 && i % (batchMessage.getRecords().size() / 10) == 0) {
-                                                updateBatchProgress(batchMessage.getBatchId(), i);
-                                        }
-
-                                } catch (Exception e) {
-                                        log.error("Error processing record {} in batch {}/{}: {}", i,
-                                                        batchMessage.getBatchNumber(), batchMessage.getTotalBatches(),
-                                                        e.getMessage());
-                                        errors.add("Record " + i + ": " + e.getMessage());
-
-                                        if (isTransactionAbortedException(e)) {
-                                                log.warn("Transaction aborted after record {}, stopping batch processing",
-                                                                i);
-                                                updateBatchProgress(batchMessage.getBatchId(), successCount);
-                                                updateBatchStatus(batchMessage.getBatchId(), BatchStatus.FAILED,
-                                                                successCount);
-                                                // refreshHistoryStatus(batchMessage.getImportHistoryId());
-                                                break;
-                                        }
+                        int replayed = replayedRecords(batchMessage, chunk);
+
+                        // sub-chunks only exist to report progress, each one is a single bulk write
+                        int step = Math.max(1, (sliceTo - sliceFrom) / 10);
+                        for (int from = sliceFrom; from < sliceTo; from += step) {
+                                int to = Math.min(from + step, sliceTo);
+                                // only records an earlier attempt may have stored are replayed idempotently
+                                int replayEnd = Math.max(from, Math.min(to, replayed));
+                                BatchImportResult replay = importRecords(processor, chunk, from, replayEnd, true);
+                                BatchImportResult result = importRecords(processor, chunk, replayEnd, to, false);
+
+                                successCount += replay.getImportedCount() + result.getImportedCount();
+                                errors.addAll(replay.getErrors());
+                                errors.addAll(result.getErrors());
+
+                                if (to < sliceTo) {
+                                        updateBatchProgress(batchMessage.getBatchId(), processedBefore + successCount);
                                 }
                         }
 
+                        batchService.advanceCheckpoint(batchMessage.getBatchId(),
+                                        recordOffset(batchMessage, chunk, bounds, sliceFrom),
+                                        recordOffset(batchMessage, chunk, bounds, sliceTo),
+                                        processedBefore + successCount);
                         return new ProcessResult(successCount, errors);
                 });
         }
 
+        // chunk positions of the records before the replay offset, the chunk is in record order
+        private int replayedRecords(ImportBatchMessage batchMessage, ValidatedChunk chunk) {
+                int replayed = 0;
+                while (replayed < chunk.size() && chunk.getRecordIndices().get(replayed)
+                                - batchMessage.getFirstRecord() < batchMessage.getReplayOffset()) {
+                        replayed++;
+                }
+                return replayed;
+        }
+
+        private BatchImportResult importRecords(ImportProcessor processor, ValidatedChunk chunk, int from, int to,
+                        boolean skipExisting) {
+                if (from == to) {
+                        return new BatchImportResult(0, List.of());
+                }
+                return savepointIsolation
+                                ? importWithSavepoint(processor, chunk.slice(from, to), skipExisting)
+                                : processor.importBatch(chunk.slice(from, to), skipExisting);
+        }
+
+        // a failed write rolls back to the savepoint taken before it, the offending records are found
+        // by halving the sub-chunk and everything else in the batch still commits
+        private BatchImportResult importWithSavepoint(ImportProcessor processor, ValidatedChunk chunk,
+                        boolean skipExisting) {
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                Savepoint savepoint;
+                try {
+                        savepoint = connection.setSavepoint();
+                } catch (SQLException e) {
+                        throw new IllegalStateException("Failed to create savepoint: " + e.getMessage(), e);
+                }
+
+                BatchImportResult result;
+                try {
+                        result = processor.importBatch(chunk, skipExisting);
+                } catch (RuntimeException e) {
+                        if (isSerializableException(e)) {
+                                // the whole transaction is retried, a savepoint does not help here
+                                throw e;
+                        }
+                        try {
+                                connection.rollback(savepoint);
+                        } catch (SQLException rollbackException) {
+                                throw new IllegalStateException("Failed to roll back to savepoint: "
+                                                + rollbackException.getMessage(), e);
+                        }
+
+                        if (chunk.size() == 1) {
+                                String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                                log.debug("Record {} rolled back to savepoint: {}", chunk.getRecordIndices().get(0),
+                                                message);
+                                return new BatchImportResult(0, List.of(String.format("Entity[%d]: %s",
+                                                chunk.getRecordIndices().get(0) + 1, message)));
+                        }
+
+                        int middle = chunk.size() / 2;
+                        BatchImportResult left = importWithSavepoint(processor, chunk.slice(0, middle), skipExisting);
+                        BatchImportResult right = importWithSavepoint(processor, chunk.slice(middle, chunk.size()),
+                                        skipExisting);
+                        List<String> errors = new ArrayList<>(left.getErrors());
+                        errors.addAll(right.getErrors());
+                        return new BatchImportResult(left.getImportedCount() + right.getImportedCount(), errors);
+                }
+
+                try {
+                        connection.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                        log.debug("Failed to release savepoint: {}", e.getMessage());
+                }
+                return result;
+        }
+
         @Getter
         @AllArgsConstructor
         public static class ProcessResult {
                 private int successCount;
                 private List<String> errors;
+                // slices that hit serialization failures and were not imported
+                private List<RecordSlice> deferred;
+
+                public ProcessResult(int successCount, List<String> errors) {
+                        this(successCount, errors, List.of());
+                }
         }
 
         public void updateBatchStatus(Long batchId, BatchStatus status, int processed) {
-                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
-                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-
-                transactionTemplate.executeWithoutResult(txStatus -> {
-                        ImportBatchEntity batchEntity = getBatchWithRetry(batchId, 3);
-                        if (batchEntity != null) {
-                                batchEntity.setBatchStatus(status.name());
-                                batchEntity.setProcessedRecords(processed);
-                                batchService.saveBatch(batchEntity);
-                                log.debug("Updated batch {} status to {}", batchId, status);
-                        }
-                });
+                if (batchService.updateStatus(batchId, status, processed)) {
+                        log.debug("Updated batch {} status to {}", batchId, status);
+                } else {
+                        log.warn("Batch {} not found while setting status {}", batchId, status);
+                }
         }
 
         public void updateBatchProgress(Long batchId, int processed) {
-                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
-                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-
-                transactionTemplate.executeWithoutResult(status -> {
-                        ImportBatchEntity batchEntity = getBatchWithRetry(batchId, 3);
-                        if (batchEntity != null) {
-                                batchEntity.setProcessedRecords(processed);
-                                batchService.saveBatch(batchEntity);
-                                log.debug("Updated batch {} progress to {}", batchId, processed);
-                        }
-                });
+                if (batchService.updateProcessedRecords(batchId, processed)) {
+                        log.debug("Updated batch {} progress to {}", batchId, processed);
+                }
         }
 
         public void updateFinalStatus(ImportBatchMessage batchMessage, ProcessResult result) {
-                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
-                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-
-                transactionTemplate.executeWithoutResult(status -> {
-                        BatchStatus finalStatus = determineFinalStatus(result.getSuccessCount(),
-                                        batchMessage.getRecords().size());
+                BatchStatus finalStatus = determineFinalStatus(result.getSuccessCount(),
+                                batchMessage.getRecordCount());
 
-                        ImportBatchEntity batchEntity = getBatchWithRetry(batchMessage.getBatchId(), 3);
-                        if (batchEntity != null) {
-                                batchEntity.setBatchStatus(finalStatus.name());
-                                batchEntity.setProcessedRecords(result.getSuccessCount());
-                                batchService.saveBatch(batchEntity);
-                                log.info("Updated batch {} final status to {}", batchMessage.getBatchId(), finalStatus);
-                        }
+                if (batchService.updateStatus(batchMessage.getBatchId(), finalStatus, result.getSuccessCount())) {
+                        log.info("Updated batch {} final status to {}", batchMessage.getBatchId(), finalStatus);
+                }
 
-                        trackingService.updateBatchProgress(batchMessage.getImportHistoryId(),
-                                        batchMessage.getBatchId(), result.getSuccessCount(),
-                                        batchMessage.getRecords().size() - result.getSuccessCount(), finalStatus);
+                trackingService.updateBatchProgress(batchMessage.getImportHistoryId(),
+                                batchMessage.getBatchId(), result.getSuccessCount(),
+                                batchMessage.getRecordCount() - result.getSuccessCount(), finalStatus);
 
-                        refreshHistoryStatus(batchMessage.getImportHistoryId());
-                });
+                refreshHistoryStatus(batchMessage.getImportHistoryId());
         }
 
         public void markBatchAsFailed(ImportBatchMessage batchMessage, String errorMessage) {
-                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
-                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-
-                transactionTemplate.executeWithoutResult(status -> {
-                        ImportBatchEntity batchEntity = getBatchWithRetry(batchMessage.getBatchId(), 3);
-                        if (batchEntity != null) {
-                                batchEntity.setBatchStatus(BatchStatus.FAILED.name());
-                                batchService.saveBatch(batchEntity);
-                                log.error("Marked batch {} as FAILED: {}", batchMessage.getBatchId(), errorMessage);
-                        }
+                if (batchService.updateStatus(batchMessage.getBatchId(), BatchStatus.FAILED)) {
+                        log.error("Marked batch {} as FAILED: {}", batchMessage.getBatchId(), errorMessage);
+                }
 
-                        trackingService.updateBatchProgress(batchMessage.getImportHistoryId(),
-                                        batchMessage.getBatchId(), 0,
-                                        batchMessage.getRecords().size(), BatchStatus.FAILED);
+                trackingService.updateBatchProgress(batchMessage.getImportHistoryId(),
+                                batchMessage.getBatchId(), 0,
+                                batchMessage.getRecordCount(), BatchStatus.FAILED);
 
-                        refreshHistoryStatus(batchMessage.getImportHistoryId());
-                });
+                refreshHistoryStatus(batchMessage.getImportHistoryId());
         }
 
         public void refreshHistoryStatus(Long historyId) {
-                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
-                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-
-                transactionTemplate.executeWithoutResult(status -> {
-                        System.out.println("Refreshing import status");
-                        List<ImportBatchEntity> batches = batchService.getBatchesByImportHistoryItemId(historyId);
-
-                        if (batches == null || batches.isEmpty()) {
-                                return;
-                        }
-
-                        boolean hasProcessing = false;
-                        boolean hasSuccess = false;
-                        boolean hasFailed = false;
-
-                        for (ImportBatchEntity batch : batches) {
-                                String statusStr = batch.getBatchStatus();
-                                if (statusStr == null) {
-                                        continue;
-                                }
-
-                                BatchStatus batchStatus = parseBatchStatus(statusStr);
-                                if (batchStatus == null) {
-                                        log.warn("Unknown batch status: {} for batch {}", statusStr, batch.getId());
-                                        continue;
-                                }
-
-                                if (batchStatus == BatchStatus.PROCESSING || batchStatus == BatchStatus.PENDING) {
-                                        hasProcessing = true;
-                                } else if (batchStatus == BatchStatus.SUCCESS) {
-                                        hasSuccess = true;
-                                } else if (batchStatus == BatchStatus.FAILED) {
-                                        hasFailed = true;
-                                }
-                        }
+                Map<BatchStatus, Long> counts = batchService.countBatchesByStatus(historyId);
+                if (counts.isEmpty()) {
+                        return;
+                }
 
-                        ImportStatus importStatus;
-                        String description;
-
-                        if (hasProcessing) {
-                                importStatus = ImportStatus.PROCESSING;
-                                long processingCount = batches.stream()
-                                                .map(ImportBatchEntity::getBatchStatus)
-                                                .filter(Objects::nonNull)
-                                                .map(this::parseBatchStatus)
-                                                .filter(bs -> bs != null && (bs == BatchStatus.PROCESSING
-                                                                || bs == BatchStatus.PENDING))
-                                                .count();
-                                description = String.format("Processing batches. Completed: %d/%d",
-                                                batches.size() - (int) processingCount, batches.size());
-                        } else if (hasSuccess && hasFailed) {
-                                importStatus = ImportStatus.PARTIAL_SUCCESS;
-                                long successCount = batches.stream()
-                                                .map(ImportBatchEntity::getBatchStatus)
-                                                .filter(Objects::nonNull)
-                                                .map(this::parseBatchStatus)
-                                                .filter(bs -> bs != null && bs == BatchStatus.SUCCESS)
-                                                .count();
-                                long failedCount = batches.stream()
-                                                .map(ImportBatchEntity::getBatchStatus)
-                                                .filter(Objects::nonNull)
-                                                .map(this::parseBatchStatus)
-                                                .filter(bs -> bs != null && bs == BatchStatus.FAILED)
-                                                .count();
-                                description = String.format("Partial success: %d batches succeeded, %d batches failed",
-                                                successCount, failedCount);
-                        } else if (hasSuccess && !hasFailed) {
-                                importStatus = ImportStatus.SUCCESS;
-                                description = String.format("All %d batches completed successfully", batches.size());
-                        } else if (hasFailed && !hasSuccess) {
-                                importStatus = ImportStatus.FAILED;
-                                description = String.format("All %d batches failed", batches.size());
-                        } else {
-                                importStatus = ImportStatus.PROCESSING;
-                                description = "Processing batches";
-                        }
+                long totalBatches = counts.values().stream().mapToLong(Long::longValue).sum();
+                long pendingCount = counts.getOrDefault(BatchStatus.PENDING, 0L)
+                                + counts.getOrDefault(BatchStatus.PROCESSING, 0L);
+                long successCount = counts.getOrDefault(BatchStatus.SUCCESS, 0L);
+                long partialCount = counts.getOrDefault(BatchStatus.PARTIAL_SUCCESS, 0L);
+                long failedCount = counts.getOrDefault(BatchStatus.FAILED, 0L);
+
+                boolean hasProcessing = pendingCount > 0 || trackingService.isDispatching(historyId);
+                boolean hasSuccess = successCount + partialCount > 0;
+                boolean hasFailed = failedCount + partialCount > 0;
+
+                ImportStatus importStatus;
+                String description;
+
+                if (hasProcessing) {
+                        importStatus = ImportStatus.PROCESSING;
+                        description = String.format("Processing batches. Completed: %d/%d",
+                                        totalBatches - pendingCount, totalBatches);
+                } else if (hasSuccess && hasFailed) {
+                        importStatus = ImportStatus.PARTIAL_SUCCESS;
+                        description = String.format("Partial success: %d batches succeeded, %d batches failed",
+                                        successCount + partialCount, failedCount);
+                } else if (hasSuccess) {
+                        importStatus = ImportStatus.SUCCESS;
+                        description = String.format("All %d batches completed successfully", totalBatches);
+                } else if (hasFailed) {
+                        importStatus = ImportStatus.FAILED;
+                        description = String.format("All %d batches failed", totalBatches);
+                } else {
+                        importStatus = ImportStatus.PROCESSING;
+                        description = "Processing batches";
+                }
 
-                        historyService.updateStatus(historyId, importStatus, description);
+                historyService.updateStatus(historyId, importStatus, description);
 
-                        WebSocketEventType eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_STARTED;
-                        switch (importStatus) {
+                WebSocketEventType eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_STARTED;
+                switch (importStatus) {
 
-                                case PROCESSING:
-                                        eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_PROCESSING;
-                                        break;
+                        case PROCESSING:
+                                eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_PROCESSING;
+                                break;
 
-                                case PARTIAL_SUCCESS:
-                                        eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_PARTIAL_SUCCESS;
-                                        break;
+                        case PARTIAL_SUCCESS:
+                                eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_PARTIAL_SUCCESS;
+                                break;
 
-                                case SUCCESS:
-                                        eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_SUCCESS;
-                                        break;
+                        case SUCCESS:
+                                eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_SUCCESS;
+                                break;
 
-                                case FAILED:
-                                        eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_FAILED;
-                                        break;
+                        case FAILED:
+                                eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_FAILED;
+                                break;
 
-                                default:
-                                        eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_CHANGED;
-                        }
-                        ImportWebSocketEvent event = new ImportWebSocketEvent(eventType, historyId);
-                        webSocketController.sendImportEvent(event);
-                });
+                        default:
+                                eventType = WebSocketEventType.ASYNC_IMPORT_PROGRESS_CHANGED;
+                }
+                ImportWebSocketEvent event = new ImportWebSocketEvent(eventType, historyId);
+                webSocketController.sendImportEvent(event);
         }
 
         private BatchStatus determineFinalStatus(int successCount, int totalRecords) {
@@ -307,77 +488,6 @@ public class ImportBatchWorker {
                 }
         }
 
-        private BatchStatus parseBatchStatus(String status) {
-                if (status == null) {
-                        return null;
-                }
-                try {
-                        return BatchStatus.valueOf(status);
-                } catch (IllegalArgumentException e) {
-                        return null;
-                }
-        }
-
-        private List<String> retryImportEntity(ImportProcessor processor, com.fasterxml.jackson.databind.JsonNode node,
-                        int nodeIndex) throws Exception {
-                final int MAX_RETRIES = 10;
-                Exception lastException = null;
-
-                for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                        try {
-                                return processor.importEntity(node, nodeIndex);
-                        } catch (Exception e) {
-                                lastException = e;
-
-                                if (isSerializableException(e)) {
-                                        if (attempt < MAX_RETRIES) {
-                                                long backoffMs = calculateBackoff(attempt);
-                                                log.warn("Serializable exception on attempt {}/{} for record {}: {}. Retrying after {}ms",
-                                                                attempt, MAX_RETRIES, nodeIndex, e.getMessage(),
-                                                                backoffMs);
-                                                try {
-                                                        Thread.sleep(backoffMs);
-                                                } catch (InterruptedException ie) {
-                                                        Thread.currentThread().interrupt();
-                                                        throw new RuntimeException("Retry interrupted", ie);
-                                                }
-                                        } else {
-                                                log.error("Failed to process record {} after {} retries due to serializable exception: {}",
-                                                                nodeIndex, MAX_RETRIES, e.getMessage());
-                                        }
-                                } else {
-                                        log.error("Non-retryable exception processing record {}: {}", nodeIndex,
-                                                        e.getMessage());
-                                        throw e;
-                                }
-                        }
-                }
-
-                throw new RuntimeException("Failed to process record after " + MAX_RETRIES + " retries", lastException);
-        }
-
-        private boolean isTransactionAbortedException(Throwable throwable) {
-                if (throwable == null) {
-                        return false;
-                }
-
-                PSQLException psqlException = findPSQLException(throwable);
-                if (psqlException != null && "25P02".equals(psqlException.getSQLState())) {
-                        return true;
-                }
-
-                String message = throwable.getMessage();
-                if (message != null && message.contains("current transaction is aborted")) {
-                        return true;
-                }
-
-                if (throwable.getCause() != null && throwable.getCause() != throwable) {
-                        return isTransactionAbortedException(throwable.getCause());
-                }
-
-                return false;
-        }
-
         private boolean isSerializableException(Throwable throwable) {
                 if (throwable == null) {
                         return false;
@@ -431,38 +541,4 @@ public class ImportBatchWorker {
 
                 return findPSQLException(throwable.getCause());
         }
-
-        private ImportBatchEntity getBatchWithRetry(Long batchId, int maxRetries) {
-                for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                        try {
-                                ImportBatchEntity batch = batchService.getBatchById(batchId);
-                                if (batch != null) {
-                                        return batch;
-                                }
-                        } catch (Exception e) {
-                                System.out.println("Concurrency exception while trying to get batch");
-                                if (attempt < maxRetries) {
-                                        long backoffMs = calculateBackoff(attempt);
-                                        log.debug("Batch {} not found on attempt {}/{}, retrying after {}ms",
-                                                        batchId, attempt, maxRetries, backoffMs);
-                                        try {
-                                                Thread.sleep(backoffMs);
-                                        } catch (InterruptedException ie) {
-                                                Thread.currentThread().interrupt();
-                                                log.warn("Interrupted while waiting for batch {}", batchId);
-                                                return null;
-                                        }
-                                } else {
-                                        log.warn("Failed to find batch {} after {} attempts: {}",
-                                                        batchId, maxRetries, e.getMessage());
-                                }
-                        }
-                }
-                return null;
-        }
-
-        private long calculateBackoff(int attempt) {
-                long backoff = (long) (50 * Math.pow(2, attempt - 1));
-                return Math.min(backoff, 1000);
-        }
 }
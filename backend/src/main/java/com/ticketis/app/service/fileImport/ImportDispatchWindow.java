@@ -0,0 +1,179 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.dto.jms.ImportProgress;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.infinispan.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Credit window between the import producer and the batch workers, one per import. A batch message
+ * is only sent while fewer than window batches of its import are unfinished, so the queue holds
+ * about as many batches as the workers can take and nothing piles up in the broker. Finished
+ * batches are counted in the replicated progress cache, credits therefore come back whichever node
+ * consumed the batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportDispatchWindow {
+
+    // replicated, holds the finished batch count of every import being dispatched
+    private final Cache<Long, ImportProgress> importProgressCache;
+
+    @Value("${app.import.worker.concurrency:5-10}")
+    private String workerConcurrency;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    // connections left for http requests, outbox and progress updates
+    @Value("${app.import.dispatch.reserved-connections:5}")
+    private int reservedConnections;
+
+    // one batch in work and one waiting per worker keeps workers busy between acknowledgements
+    @Value("${app.import.dispatch.credits-per-worker:2}")
+    private int creditsPerWorker;
+
+    @Value("${app.import.dispatch.window:0}")
+    private int configuredWindow;
+
+    // finished batches reported by other nodes are only seen by polling the progress cache
+    @Value("${app.import.dispatch.poll-ms:200}")
+    private long pollMs;
+
+    // a window that does not move for this long is assumed to have lost batches and is sent past
+    @Value("${app.import.dispatch.credit-timeout-ms:60000}")
+    private long creditTimeoutMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFinished = lock.newCondition();
+    private int window;
+    private int activeWorkers;
+
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    public void init() {
+        int maxConsumers = Integer.parseInt(workerConcurrency.substring(workerConcurrency.indexOf('-') + 1).trim());
+        activeWorkers = Math.max(1, Math.min(maxConsumers, connectionPoolSize - reservedConnections));
+        window = configuredWindow > 0 ? configuredWindow : activeWorkers * creditsPerWorker;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        dispatcher = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "import-batch-dispatcher-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("Import dispatch window: {} batches in flight per import for {} active workers", window,
+                activeWorkers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Runs a dispatch loop on a dispatcher thread of its own, a large import does not hold up others.
+     */
+    public void submit(Runnable dispatch) {
+        dispatcher.execute(dispatch);
+    }
+
+    /**
+     * Opens the window of an import whose progress is already tracked.
+     */
+    public Credits open(Long importHistoryId) {
+        return new Credits(importHistoryId, finishedBatches(importHistoryId));
+    }
+
+    /**
+     * Wakes dispatch loops waiting on this node after a batch was finished here.
+     */
+    public void batchFinished() {
+        lock.lock();
+        try {
+            batchFinished.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public int getReservedConnections() {
+        return reservedConnections;
+    }
+
+    private int finishedBatches(Long importHistoryId) {
+        ImportProgress progress = importProgressCache.get(importHistoryId);
+        return progress == null ? -1 : progress.getCompletedBatches();
+    }
+
+    /**
+     * Credits of one import. Used by its dispatch loop only.
+     */
+    public class Credits {
+
+        private final Long importHistoryId;
+        // batches finished before dispatch started, e.g. of a resumed import, never took a credit
+        private final int finishedBefore;
+        private int sent;
+
+        private Credits(Long importHistoryId, int finishedBefore) {
+            this.importHistoryId = importHistoryId;
+            this.finishedBefore = Math.max(0, finishedBefore);
+        }
+
+        /**
+         * Blocks until a batch may be sent.
+         */
+        public void acquire() throws InterruptedException {
+            int lastFinished = -1;
+            long deadline = 0;
+            lock.lockInterruptibly();
+            try {
+                while (true) {
+                    int finished = finishedBatches(importHistoryId);
+                    // no longer tracked, e.g. completed or expired, nothing is left to wait for
+                    if (finished < 0 || sent - (finished - finishedBefore) < window) {
+                        break;
+                    }
+                    long now = System.currentTimeMillis();
+                    if (finished != lastFinished) {
+                        lastFinished = finished;
+                        deadline = now + creditTimeoutMs;
+                    } else if (now >= deadline) {
+                        log.warn("No batch of import {} finished for {} ms, sending past the window",
+                                importHistoryId, creditTimeoutMs);
+                        break;
+                    }
+                    batchFinished.await(Math.min(pollMs, deadline - now), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+            sent++;
+        }
+
+        /**
+         * Returns the credit of a batch that could not be sent.
+         */
+        public void unsent() {
+            sent--;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ticketis.app.service.fileImport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketis.app.dto.response.DryRunReport;
+import com.ticketis.app.importProcessor.ImportProcessor;
+import com.ticketis.app.service.ImportValidator;
+import com.ticketis.app.util.ImportFileFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks an upload the way an import would, without storing the file or touching the database:
+ * records are streamed from the upload, validated on the validation pool and every error is written
+ * to an NDJSON report as soon as its chunk is checked. The report ends with error counts per type
+ * and the batch plan the import would use.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportDryRunService {
+
+    private final ImportValidator validator;
+    private final ImportProcessorDispatcher processorDispatcher;
+    private final ImportValidationStage validationStage;
+    private final AdaptiveBatchSizer batchSizer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.distributed-threshold}")
+    private Integer asyncThreshold;
+
+    @Value("${app.import.dry-run.chunk-size:10000}")
+    private int chunkSize;
+
+    // error lines beyond this are only counted, so a broken 10M record file does not produce a huge report
+    @Value("${app.import.dry-run.max-reported-errors:100000}")
+    private int maxReportedErrors;
+
+    /**
+     * Rejects unsupported files and entity types right away, the report itself is written while
+     * the response is streamed.
+     */
+    public StreamingResponseBody dryRun(MultipartFile file, String entityType) {
+        validator.validateFile(file);
+        ImportFileFormat format = ImportFileFormat.detect(file.getOriginalFilename(), file.getContentType());
+        ImportProcessor processor = processorDispatcher.findProcessor(entityType);
+
+        return out -> writeReport(file, format, processor, entityType, out);
+    }
+
+    private void writeReport(MultipartFile file, ImportFileFormat format, ImportProcessor processor,
+            String entityType, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        OutputStream report = new BufferedOutputStream(out);
+        ReportState state = new ReportState();
+
+        try (InputStream input = file.getInputStream()) {
+            format.streamRecords(input, chunkSize, chunk -> checkChunk(processor, chunk, state, report));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IOException e) {
+            // writing the report fails with UncheckedIOException, this is the upload being unreadable
+            state.parseError = true;
+            String message = e instanceof JsonProcessingException jsonError
+                    ? jsonError.getOriginalMessage()
+                    : e.getMessage();
+            writeLine(report, new DryRunReport.ParseError(state.records + 1, message));
+        }
+
+        writeLine(report, summary(entityType, state, System.currentTimeMillis() - startTime));
+        report.flush();
+        log.info("Dry run of {} ({}) checked {} records, {} errors", file.getOriginalFilename(), entityType,
+                state.records, state.errors);
+    }
+
+    private void checkChunk(ImportProcessor processor, List<JsonNode> chunk, ReportState state,
+            OutputStream report) {
+        List<List<String>> results = validationStage.validateRecords(processor, chunk);
+        try {
+            for (List<String> recordErrors : results) {
+                state.records++;
+                if (recordErrors.isEmpty()) {
+                    continue;
+                }
+                state.invalidRecords++;
+                for (String error : recordErrors) {
+                    state.errors++;
+                    String errorType = errorType(error);
+                    state.errorsByType.merge(errorType, 1L, Long::sum);
+                    if (state.errors <= maxReportedErrors) {
+                        writeLine(report, new DryRunReport.RecordError(state.records, errorType, error));
+                    }
+                }
+            }
+            report.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DryRunReport.Summary summary(String entityType, ReportState state, long durationMs) {
+        return new DryRunReport.Summary(
+                "summary",
+                entityType,
+                state.errors == 0 && !state.parseError,
+                state.records,
+                state.records - state.invalidRecords,
+                state.invalidRecords,
+                state.errors,
+                state.errors > maxReportedErrors,
+                state.errorsByType,
+                batchPlan(entityType, state.records),
+                durationMs);
+    }
+
+    private DryRunReport.BatchPlan batchPlan(String entityType, int records) {
+        if (records <= asyncThreshold) {
+            return new DryRunReport.BatchPlan("sync", records, records == 0 ? 0 : 1);
+        }
+        int batchSize = batchSizer.batchSizeFor(entityType, records);
+        return new DryRunReport.BatchPlan("async", batchSize, (records + batchSize - 1) / batchSize);
+    }
+
+    private void writeLine(OutputStream report, Object line) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(line));
+        report.write('\n');
+    }
+
+    // "Ticket.price must be > 0, got: 0" -> "ticket.price", "price: must not be null" -> "price"
+    private static String errorType(String error) {
+        int end = 0;
+        while (end < error.length() && error.charAt(end) != ':' && !Character.isWhitespace(error.charAt(end))) {
+            end++;
+        }
+        return error.substring(0, end).toLowerCase();
+    }
+
+    private static class ReportState {
+        private int records;
+        private int invalidRecords;
+        private long errors;
+        private boolean parseError;
+        private final Map<String, Long> errorsByType = new TreeMap<>();
+    }
+}
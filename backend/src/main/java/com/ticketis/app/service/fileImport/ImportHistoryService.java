@@ -2,6 +2,7 @@ package com.ticketis.app.service.fileImport;
 
 import com.ticketis.app.exception.notfoundexception.FileImportRecordNotFoundException;
 import com.ticketis.app.model.ImportHistoryItem;
+import com.ticketis.app.model.ImportPlan;
 import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.repository.ImportHistoryRepository;
 import com.ticketis.app.service.MinioService;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -63,6 +65,45 @@ public class ImportHistoryService {
         return importHistoryRepository.save(item);
     }
 
+    public void recordPlan(Long importId, ImportPlan plan) {
+        ImportHistoryItem item = getImportItemById(importId);
+        item.setImportStrategy(plan.getStrategy());
+        item.setPlanDetails(plan.getDetails());
+        importHistoryRepository.save(item);
+    }
+
+    // only set once every batch manifest of a distributed import is stored
+    public void recordTotalRecords(Long importId, int totalRecords) {
+        ImportHistoryItem item = getImportItemById(importId);
+        item.setTotalRecords(totalRecords);
+        importHistoryRepository.save(item);
+    }
+
+    /**
+     * Stores the content hash of an upload.
+     *
+     * @return the latest successful import of the same content, if any
+     */
+    public Optional<ImportHistoryItem> recordContentHash(Long importId, String contentHash) {
+        ImportHistoryItem item = getImportItemById(importId);
+        item.setContentHash(contentHash);
+        importHistoryRepository.save(item);
+        return importHistoryRepository.findFirstByContentHashAndImportStatusAndIdNotOrderByIdDesc(
+                contentHash, ImportStatus.SUCCESS, importId);
+    }
+
+    public List<ImportHistoryItem> getImportsByStatus(List<ImportStatus> statuses) {
+        return importHistoryRepository.findByImportStatusIn(statuses);
+    }
+
+    // unlike updateStatus the stored file is kept, so the import can still be resumed later
+    public void markAsFailed(Long importId, String description) {
+        ImportHistoryItem item = getImportItemById(importId);
+        item.setImportStatus(ImportStatus.FAILED);
+        item.setResultDescription(description);
+        importHistoryRepository.save(item);
+    }
+
     @Transactional
     public void markIncompleteImportsAsFailed() {
         List<ImportStatus> completedStatuses = Arrays.asList(ImportStatus.SUCCESS, ImportStatus.PARTIAL_SUCCESS);
@@ -2,18 +2,20 @@ package com.ticketis.app.service.fileImport;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.ticketis.app.exception.importBusinessException.FileImportValidationException;
+import com.ticketis.app.importProcessor.BatchImportResult;
+import com.ticketis.app.importProcessor.ValidatedChunk;
+import com.ticketis.app.model.ImportPlan;
 import com.ticketis.app.model.ImportResult;
+import com.ticketis.app.model.enums.ImportStrategy;
+import com.ticketis.app.util.ImportFileFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 
-import static com.ticketis.app.util.JsonParser.parseJsonFile;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -23,33 +25,51 @@ public class ImportOrchestratorService {
     private final AsyncImportService asyncImportService;
     private final SyncImportService syncImportService;
     private final ImportHistoryService importHistoryService;
-
-    @Value("${app.import.distributed-threshold}")
-    private Integer asyncThreshold;
+    private final ImportPreflightService preflightService;
+    private final ImportPlanner importPlanner;
 
     public ImportResult startImport(String filename, String entityType)
             throws IOException {
 
         Path filePath = fileStorageService.getFilePath(filename);
+        ImportFileFormat format = ImportFileFormat.of(filename);
 
-        List<JsonNode> nodes = parseJsonFile(filePath);
+        ImportPlan plan = importPlanner.plan(filePath, entityType);
+        int estimatedRecords = plan.getEstimatedRecords();
 
-        if (nodes.isEmpty()) {
-            throw new FileImportValidationException(List.of("No entities found in JSON file"));
+        if (estimatedRecords == 0) {
+            throw new FileImportValidationException(List.of("No entities found in " + format + " file"));
         }
 
+        preflightService.checkUniqueNames(filePath, entityType);
+
         Long importHistoryId = importHistoryService.getImportItemNyFilename(filename).getId();
-        if (nodes.size() > asyncThreshold) {
-            log.info("Using asynchronous processing for {} records of type: {}", nodes.size(), entityType);
-            return importAsync(nodes, entityType, filename, importHistoryId);
+        importHistoryService.recordPlan(importHistoryId, plan);
+        long started = System.currentTimeMillis();
+
+        if (plan.getStrategy() == ImportStrategy.DISTRIBUTED) {
+            log.info("Using asynchronous processing for ~{} records of type: {}", estimatedRecords, entityType);
+            return importAsync(filePath, entityType, importHistoryId, estimatedRecords);
+        }
+
+        ImportResult result;
+        if (plan.getStrategy() == ImportStrategy.BULK_COPY) {
+            log.info("Using bulk COPY processing for ~{} records of type: {}", estimatedRecords, entityType);
+            result = importBulk(filePath, entityType, importHistoryId, estimatedRecords);
         } else {
+            List<JsonNode> nodes = format.parseFile(filePath);
             log.info("Using synchronous processing for {} records of type: {}", nodes.size(), entityType);
-            return importSync(nodes, entityType, filename, importHistoryId);
+            result = importSync(nodes, entityType, filename, importHistoryId);
         }
+        importPlanner.recordOutcome(plan.getStrategy(), result.getProcessedCount(),
+                System.currentTimeMillis() - started);
+        return result;
     }
 
     private ImportResult importSync(List<JsonNode> entities, String entityType, String filename, Long importHistoryId) {
-        List<String> errors = syncImportService.startSyncImport(entities, entityType, filename, importHistoryId);
+        ValidatedChunk chunk = syncImportService.validate(entities, entityType);
+        List<String> errors = syncImportService.startSyncImport(chunk, entities.size(), entityType, filename,
+                importHistoryId);
 
         return ImportResult.builder()
                 .processedCount(entities.size())
@@ -58,20 +78,32 @@ public class ImportOrchestratorService {
                 .build();
     }
 
-    private ImportResult importAsync(List<JsonNode> entities, String entityType, String filename,
-            Long importHistoryId) {
+    private ImportResult importBulk(Path filePath, String entityType, Long importHistoryId, int estimatedRecords)
+            throws IOException {
+        BatchImportResult result = syncImportService.startBulkImport(filePath, entityType, importHistoryId,
+                estimatedRecords);
+
+        return ImportResult.builder()
+                .processedCount(result.getImportedCount())
+                .errorCount(result.getErrors().size())
+                .errors(result.getErrors())
+                .build();
+    }
+
+    private ImportResult importAsync(Path filePath, String entityType, Long importHistoryId, int estimatedRecords)
+            throws IOException {
 
-        asyncImportService.startAsyncImport(entities, entityType, filename, importHistoryId);
+        asyncImportService.startAsyncImport(filePath, entityType, importHistoryId, estimatedRecords);
 
         return ImportResult.builder()
                 .processedCount(0)
                 .errorCount(0)
                 .importHistoryId(importHistoryId)
                 .message(String.format(
-                        "Asynchronous import started. Processing %d %s records. Use task ID '%s' to track progress.",
-                        entities.size(), entityType, importHistoryId))
+                        "Asynchronous import started. Processing ~%d %s records. Use task ID '%s' to track progress.",
+                        estimatedRecords, entityType, importHistoryId))
                 .isAsync(true)
-                .totalRecords(entities.size())
+                .totalRecords(estimatedRecords)
                 .build();
 
     }
@@ -0,0 +1,105 @@
+package com.ticketis.app.service.fileImport;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the persistence context of import transactions bounded, however many records they write.
+ * In STATELESS mode entities read by imports come from a {@link StatelessSession} on the
+ * transaction's connection and never become managed. In FLUSH_CLEAR mode they are read through the
+ * entity manager. In both modes the context is flushed and cleared every flush-interval written
+ * records, which bounds whatever an import still writes through JPA.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportPersistenceContext {
+
+    public enum Mode {
+        STATELESS, FLUSH_CLEAR
+    }
+
+    private final DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.persistence.mode:STATELESS}")
+    private Mode mode;
+
+    // 0 never clears
+    @Value("${app.import.persistence.flush-interval:1000}")
+    private int flushInterval;
+
+    /**
+     * Entities with the given ids, in no particular order. Missing ids are left out.
+     */
+    public <T> List<T> findAllById(Class<T> type, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String query = "FROM " + entityManager.getMetamodel().entity(type).getName() + " e WHERE e.id IN :ids";
+
+        if (mode == Mode.FLUSH_CLEAR) {
+            return entityManager.createQuery(query, type).setParameter("ids", ids).getResultList();
+        }
+
+        // the session borrows the transaction's connection, closing the session leaves it open
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.withStatelessOptions().connection(connection)
+                .openStatelessSession()) {
+            return session.createSelectionQuery(query, type).setParameter("ids", ids).getResultList();
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Counts records written in the current transaction and flushes and clears the persistence
+     * context once flush-interval of them were written since the last clear.
+     */
+    public void afterWrite(int records) {
+        if (flushInterval <= 0 || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+
+        WriteCounter counter = (WriteCounter) TransactionSynchronizationManager.getResource(this);
+        if (counter == null) {
+            counter = new WriteCounter();
+            TransactionSynchronizationManager.bindResource(this, counter);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ImportPersistenceContext.this);
+                }
+            });
+        }
+
+        counter.written += records;
+        if (counter.written >= flushInterval) {
+            entityManager.flush();
+            entityManager.clear();
+            log.trace("Cleared persistence context after {} written records", counter.written);
+            counter.written = 0;
+        }
+    }
+
+    private static class WriteCounter {
+        private int written;
+    }
+}
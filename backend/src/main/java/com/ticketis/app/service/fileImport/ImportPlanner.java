@@ -0,0 +1,208 @@
+package com.ticketis.app.service.fileImport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ticketis.app.model.ImportPlan;
+import com.ticketis.app.model.enums.BatchStatus;
+import com.ticketis.app.model.enums.ImportStrategy;
+import com.ticketis.app.repository.ImportBatchRepository;
+import com.ticketis.app.util.ImportFileFormat;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chooses how an upload is imported by estimating the duration of every strategy. The estimate
+ * combines a profile of the file's first records (count, width, share of nested objects that turn
+ * into extra rows) with live load: records still queued for the workers, busy pool connections and
+ * the throughput recent imports actually achieved.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportPlanner {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final ImportProcessorDispatcher processorDispatcher;
+    private final AdaptiveBatchSizer batchSizer;
+    private final ImportDispatchWindow dispatchWindow;
+    private final ImportBatchRepository batchRepository;
+    private final DataSource dataSource;
+
+    // sync imports hold the whole file in memory, larger files are never planned in the request
+    @Value("${app.import.distributed-threshold}")
+    private Integer syncMaxRecords;
+
+    @Value("${app.import.copy-engine.enabled:true}")
+    private boolean copyEngineEnabled;
+
+    @Value("${app.import.copy-engine.max-records:500000}")
+    private int copyEngineMaxRecords;
+
+    @Value("${app.import.planner.sample-size:200}")
+    private int sampleSize;
+
+    @Value("${app.import.planner.parse-bytes-per-ms:50000}")
+    private double parseBytesPerMs;
+
+    @Value("${app.import.planner.dispatch-overhead-ms:1000}")
+    private long dispatchOverheadMs;
+
+    // starting points until imports of the kind have been measured
+    @Value("${app.import.planner.sync-records-per-second:3000}")
+    private double defaultSyncRate;
+
+    @Value("${app.import.planner.bulk-records-per-second:30000}")
+    private double defaultBulkRate;
+
+    @Value("${app.import.planner.worker-records-per-second:2500}")
+    private double defaultWorkerRate;
+
+    private final Map<ImportStrategy, Double> measuredRates = new EnumMap<>(ImportStrategy.class);
+
+    public ImportPlan plan(Path filePath, String entityType) throws IOException {
+        ImportFileFormat format = ImportFileFormat.of(filePath.getFileName().toString());
+        long fileSize = Files.size(filePath);
+        int records = format.estimateRecordCount(filePath, syncMaxRecords + 1);
+        if (records == 0) {
+            return new ImportPlan(ImportStrategy.SYNC, 0, 0, "Empty file");
+        }
+
+        double nestedShare = nestedShare(format.sampleRecords(filePath, sampleSize));
+        // every embedded object is one more row to look up or insert
+        double weightedRecords = records * (1 + nestedShare);
+        double parseMs = fileSize / parseBytesPerMs;
+
+        Pool pool = poolState();
+        long backlog = batchRepository.countUnprocessedRecords(
+                List.of(BatchStatus.PENDING.name(), BatchStatus.PROCESSING.name()));
+        // single transaction strategies compete with everyone else for the database
+        double contention = 1 + pool.load();
+
+        long syncMs = -1;
+        if (records <= syncMaxRecords) {
+            syncMs = Math.round(parseMs + weightedRecords / rate(ImportStrategy.SYNC, defaultSyncRate) * 1000
+                    * contention);
+        }
+
+        long bulkMs = -1;
+        if (copyEngineEnabled && records <= copyEngineMaxRecords
+                && processorDispatcher.findProcessor(entityType).supportsBulkLoad()) {
+            bulkMs = Math.round(parseMs + weightedRecords / rate(ImportStrategy.BULK_COPY, defaultBulkRate) * 1000
+                    * contention);
+        }
+
+        // workers only run in parallel as far as free connections allow, and queued records go first
+        int workers = Math.max(1, Math.min(dispatchWindow.getActiveWorkers(), pool.free()));
+        double workerRate = batchSizer.recordsPerSecond(entityType);
+        workerRate = workerRate > 0 ? workerRate : defaultWorkerRate;
+        long distributedMs = Math.round(dispatchOverheadMs + parseMs / workers
+                + (backlog + weightedRecords) / (workerRate * workers) * 1000);
+
+        ImportStrategy strategy = ImportStrategy.DISTRIBUTED;
+        long estimateMs = distributedMs;
+        if (bulkMs >= 0 && bulkMs < estimateMs) {
+            strategy = ImportStrategy.BULK_COPY;
+            estimateMs = bulkMs;
+        }
+        if (syncMs >= 0 && syncMs <= estimateMs) {
+            strategy = ImportStrategy.SYNC;
+            estimateMs = syncMs;
+        }
+
+        String details = String.format(Locale.ROOT,
+                "~%d records, %d B/record, %d%% nested; %d records queued, %d/%d connections busy; "
+                        + "estimated sync %s, bulk COPY %s, distributed %s on %d workers",
+                records, fileSize / records, Math.round(nestedShare * 100), backlog, pool.active(), pool.max(),
+                formatEstimate(syncMs, "over " + syncMaxRecords + " records"),
+                formatEstimate(bulkMs, !copyEngineEnabled ? "disabled"
+                        : records > copyEngineMaxRecords ? "over " + copyEngineMaxRecords + " records"
+                        : "not supported for " + entityType),
+                formatEstimate(distributedMs, null), workers);
+        log.info("Planned {} import of {} as {}: {}", entityType, filePath.getFileName(), strategy, details);
+        return new ImportPlan(strategy, records, estimateMs, details);
+    }
+
+    /**
+     * Feeds the duration of a finished sync or bulk import back into later estimates. Worker
+     * throughput is measured per batch by {@link AdaptiveBatchSizer}.
+     */
+    public void recordOutcome(ImportStrategy strategy, int records, long durationMs) {
+        if (records <= 0) {
+            return;
+        }
+        double observed = records * 1000.0 / Math.max(1, durationMs);
+        synchronized (measuredRates) {
+            measuredRates.merge(strategy, observed, (current, next) -> current + SMOOTHING * (next - current));
+        }
+    }
+
+    private double rate(ImportStrategy strategy, double defaultRate) {
+        synchronized (measuredRates) {
+            return measuredRates.getOrDefault(strategy, defaultRate);
+        }
+    }
+
+    // share of references given as embedded objects rather than ids of stored rows
+    private double nestedShare(List<JsonNode> sample) {
+        int nested = 0;
+        int references = 0;
+        for (JsonNode record : sample) {
+            Iterator<Map.Entry<String, JsonNode>> fields = record.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isObject()) {
+                    nested++;
+                    references++;
+                } else if (field.getKey().endsWith("Id") && !field.getValue().isNull()) {
+                    references++;
+                }
+            }
+        }
+        return references == 0 ? 0 : (double) nested / references;
+    }
+
+    private Pool poolState() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                if (pool != null) {
+                    return new Pool(pool.getActiveConnections(), hikari.getMaximumPoolSize(),
+                            dispatchWindow.getReservedConnections());
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("Connection pool metrics unavailable: {}", e.getMessage());
+        }
+        return new Pool(0, 1, 0);
+    }
+
+    private static String formatEstimate(long estimateMs, String unavailable) {
+        return estimateMs < 0 ? "n/a (" + unavailable + ")" : String.format(Locale.ROOT, "%.1f s", estimateMs / 1000.0);
+    }
+
+    private record Pool(int active, int max, int reserved) {
+        double load() {
+            return Math.min(1, (double) active / max);
+        }
+
+        int free() {
+            return max - reserved - active;
+        }
+    }
+}
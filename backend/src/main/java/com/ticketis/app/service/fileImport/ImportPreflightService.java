@@ -0,0 +1,115 @@
+package com.ticketis.app.service.fileImport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ticketis.app.exception.importBusinessException.FileImportValidationException;
+import com.ticketis.app.repository.ImportBulkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportPreflightService {
+
+    private static final String TICKET_ENTITY_TYPE = "ticket";
+    private static final int PARSE_CHUNK_SIZE = 10000;
+
+    private final TicketNameFilterService nameFilterService;
+    private final ImportBulkRepository bulkRepository;
+    private final ParallelFileParser fileParser;
+
+    @Value("${app.import.preflight.query-chunk-size:5000}")
+    private int queryChunkSize;
+
+    @Value("${app.import.preflight.max-reported-conflicts:20}")
+    private int maxReportedConflicts;
+
+    /**
+     * Checks ticket names of the whole file against each other and against the database
+     * before any record is imported. Throws {@link FileImportValidationException} listing the conflicts.
+     */
+    public void checkUniqueNames(Path filePath, String entityType) throws IOException {
+        if (entityType == null || !TICKET_ENTITY_TYPE.equalsIgnoreCase(entityType.trim())) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        Map<String, Integer> firstIndexByName = new HashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        int[] conflictCount = { 0 };
+
+        // chunks arrive concurrently and out of order, names are extracted in parallel and merged under the lock
+        int records = fileParser.parse(filePath, PARSE_CHUNK_SIZE, (firstRecord, chunk) -> {
+            List<String> names = new ArrayList<>(chunk.size());
+            for (JsonNode node : chunk) {
+                JsonNode nameNode = node.get("name");
+                boolean hasName = nameNode != null && nameNode.isTextual() && !nameNode.asText().isBlank();
+                names.add(hasName ? nameNode.asText() : null);
+            }
+
+            synchronized (firstIndexByName) {
+                for (int i = 0; i < names.size(); i++) {
+                    String name = names.get(i);
+                    if (name == null) {
+                        continue;
+                    }
+                    int index = firstRecord + i;
+                    Integer firstIndex = firstIndexByName.putIfAbsent(name, index);
+                    if (firstIndex == null) {
+                        continue;
+                    }
+                    if (index < firstIndex) {
+                        firstIndexByName.put(name, index);
+                    }
+                    report(conflicts, conflictCount, String.format("Entity[%d]: Ticket name '%s' duplicates Entity[%d]",
+                            Math.max(index, firstIndex) + 1, name, Math.min(index, firstIndex) + 1));
+                }
+            }
+        });
+
+        List<String> candidates = new ArrayList<>();
+        for (String name : firstIndexByName.keySet()) {
+            if (nameFilterService.mightExist(name)) {
+                candidates.add(name);
+            }
+        }
+
+        for (int from = 0; from < candidates.size(); from += queryChunkSize) {
+            List<String> chunk = candidates.subList(from, Math.min(from + queryChunkSize, candidates.size()));
+            Set<String> existing = bulkRepository.findExistingTicketNames(chunk);
+            for (String name : chunk) {
+                if (existing.contains(name)) {
+                    report(conflicts, conflictCount, String.format(
+                            "Entity[%d]: Ticket with name '%s' already exists", firstIndexByName.get(name) + 1, name));
+                }
+            }
+        }
+
+        log.info("Name pre-flight checked {} records ({} database lookups) in {} ms, {} conflicts",
+                records, candidates.size(), System.currentTimeMillis() - started, conflictCount[0]);
+
+        if (conflictCount[0] > 0) {
+            if (conflictCount[0] > conflicts.size()) {
+                conflicts.add(String.format("... and %d more conflicts", conflictCount[0] - conflicts.size()));
+            }
+            throw new FileImportValidationException(conflicts);
+        }
+    }
+
+    private void report(List<String> conflicts, int[] conflictCount, String message) {
+        conflictCount[0]++;
+        if (conflicts.size() < maxReportedConflicts) {
+            conflicts.add(message);
+        }
+    }
+}
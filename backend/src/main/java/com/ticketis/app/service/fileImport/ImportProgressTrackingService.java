@@ -2,16 +2,19 @@ package com.ticketis.app.service.fileImport;
 
 import com.ticketis.app.controller.WebSocketEventController;
 import com.ticketis.app.dto.ImportWebSocketEvent;
+import com.ticketis.app.dto.jms.BatchProgress;
+import com.ticketis.app.dto.jms.ImportBatchEntity;
 import com.ticketis.app.dto.jms.ImportProgress;
 import com.ticketis.app.model.enums.BatchStatus;
 import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.model.enums.WebSocketEventType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.infinispan.Cache;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.function.UnaryOperator;
 
 @Service
 @Slf4j
@@ -20,11 +23,13 @@ public class ImportProgressTrackingService {
 
     private final WebSocketEventController webSocketEventController;
     private final ImportHistoryService importHistoryService;
-    private final Map<Long, ImportProgress> progressMap = new ConcurrentHashMap<>();
+    // replicated across nodes, any node may report batches of any import
+    private final Cache<Long, ImportProgress> importProgressCache;
+    private final Cache<Long, BatchProgress> batchProgressCache;
 
     public void initializeProgress(Long importHistoryId, int totalBatches, int totalRecords, boolean isAsync) {
         ImportProgress progress = new ImportProgress(importHistoryId, totalBatches, totalRecords);
-        progressMap.put(importHistoryId, progress);
+        importProgressCache.put(importHistoryId, progress);
         WebSocketEventType eventType = isAsync ? WebSocketEventType.ASYNC_IMPORT_PROGRESS_STARTED : WebSocketEventType.SYNC_IMPORT_PROGRESS_STARTED;
         sendProgressEvent(progress, eventType, "Import task initialized");
 
@@ -32,23 +37,108 @@ public class ImportProgressTrackingService {
                 totalBatches, totalRecords);
     }
 
+    public void initializeStreamingProgress(Long importHistoryId) {
+        ImportProgress progress = ImportProgress.streaming(importHistoryId);
+        importProgressCache.put(importHistoryId, progress);
+        sendProgressEvent(progress, WebSocketEventType.ASYNC_IMPORT_PROGRESS_STARTED, "Import task initialized");
+
+        log.info("Initialized streaming progress tracking for task: {}", importHistoryId);
+    }
+
+    /**
+     * Starts tracking a resumed import with its finished batches already counted.
+     */
+    public void initializeResumedProgress(Long importHistoryId, List<ImportBatchEntity> finishedBatches) {
+        ImportProgress progress = ImportProgress.streaming(importHistoryId);
+        for (ImportBatchEntity batch : finishedBatches) {
+            BatchStatus status = BatchStatus.valueOf(batch.getBatchStatus());
+            int processed = status == BatchStatus.FAILED ? 0 : batch.getProcessedRecords();
+            BatchProgress batchProgress = new BatchProgress(batch.getId(), processed,
+                    batch.getTotalRecords() - processed, status);
+            batchProgressCache.put(batch.getId(), batchProgress);
+            progress = progress.withBatch(null, batchProgress);
+        }
+        importProgressCache.put(importHistoryId, progress);
+        sendProgressEvent(progress, WebSocketEventType.ASYNC_IMPORT_PROGRESS_STARTED, "Import task resumed");
+
+        log.info("Initialized progress tracking for resumed task: {}, {} batches already finished", importHistoryId,
+                finishedBatches.size());
+    }
+
+    /**
+     * Claims an import that is not tracked yet, e.g. one that is queued or about to be resumed, so
+     * other nodes leave it alone. Initializing its progress replaces the returned claim.
+     *
+     * @return the claim, or null when the import is already tracked, possibly by another node
+     */
+    public ImportProgress claim(Long importHistoryId) {
+        ImportProgress claim = ImportProgress.streaming(importHistoryId);
+        return importProgressCache.putIfAbsent(importHistoryId, claim) == null ? claim : null;
+    }
+
+    /**
+     * Stops tracking a claimed import that ended before its progress was initialized.
+     */
+    public void releaseClaim(ImportProgress claim) {
+        importProgressCache.remove(claim.getImportHistoryId(), claim);
+    }
+
+    public boolean isTracked(Long importHistoryId) {
+        return importProgressCache.containsKey(importHistoryId);
+    }
+
+    public void completeDispatch(Long importHistoryId, int totalBatches, int totalRecords) {
+        ImportProgress progress = update(importHistoryId,
+                current -> current.withDispatchCompleted(totalBatches, totalRecords));
+        if (progress == null) {
+            log.warn("Progress not found for task: {}", importHistoryId);
+            return;
+        }
+
+        updateDatabaseStatus(progress);
+
+        log.info("Dispatch completed for task: {}, total batches: {}, total records: {}", importHistoryId,
+                totalBatches, totalRecords);
+    }
+
+    public boolean isDispatching(Long importHistoryId) {
+        ImportProgress progress = importProgressCache.get(importHistoryId);
+        return progress != null && !progress.isDispatchCompleted();
+    }
+
     public void updateBatchProgress(Long importHistoryId, Long batchId, int processedRecords, int errorCount,
             BatchStatus status) {
-        ImportProgress progress = progressMap.get(importHistoryId);
+        BatchProgress batchProgress = new BatchProgress(batchId, processedRecords, errorCount, status);
+        // put returns the previous report of this batch, its contribution is replaced rather than added to
+        BatchProgress previous = batchProgressCache.put(batchId, batchProgress);
+        ImportProgress progress = update(importHistoryId, current -> current.withBatch(previous, batchProgress));
         if (progress == null) {
             log.warn("Progress not found for task: {}", importHistoryId);
             return;
         }
 
-        progress.updateBatch(batchId, processedRecords, errorCount, status);
         sendProgressEvent(progress, WebSocketEventType.UPDATED, getProgressMessage(progress));
         updateDatabaseStatus(progress);
 
         log.debug("Updated progress for task: {}, batch: {}, status: {}", importHistoryId, batchId, status);
     }
 
-    public ImportProgress getProgress(String taskId) {
-        return progressMap.get(taskId);
+    public ImportProgress getProgress(Long importHistoryId) {
+        return importProgressCache.get(importHistoryId);
+    }
+
+    // optimistic merge: a conditional replace that lost against another node retries on the newer value
+    private ImportProgress update(Long importHistoryId, UnaryOperator<ImportProgress> change) {
+        while (true) {
+            ImportProgress current = importProgressCache.get(importHistoryId);
+            if (current == null) {
+                return null;
+            }
+            ImportProgress updated = change.apply(current);
+            if (importProgressCache.replace(importHistoryId, current, updated)) {
+                return updated;
+            }
+        }
     }
 
     private void sendProgressEvent(ImportProgress progress, WebSocketEventType eventType, String message) {
@@ -73,14 +163,18 @@ public class ImportProgressTrackingService {
     private void updateDatabaseStatus(ImportProgress progress) {
         try {
             if (progress.isCompleted()) {
+                // several nodes can observe completion at once, only the one removing the entry reports it
+                if (!importProgressCache.remove(progress.getImportHistoryId(), progress)) {
+                    return;
+                }
                 String message = String.format("Import completed. Processed: %d, Errors: %d",
                         progress.getTotalProcessed(), progress.getTotalErrors());
-                ImportStatus status = progress.isFailed() ? ImportStatus.FAILED : ImportStatus.SUCCESS;
+                ImportStatus status = progress.isFailed() ? ImportStatus.FAILED
+                        : progress.hasFailedBatches() ? ImportStatus.PARTIAL_SUCCESS : ImportStatus.SUCCESS;
                 importHistoryService.updateStatus(progress.getImportHistoryId(), status, message);
 
                 sendProgressEvent(progress, WebSocketEventType.UPDATED, message);
 
-                progressMap.remove(progress.getImportHistoryId());
                 log.info("Import task {} completed with status: {}", progress.getImportHistoryId(), status);
 
             } else {
@@ -0,0 +1,137 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.dto.jms.ImportBatchEntity;
+import com.ticketis.app.dto.jms.ImportBatchMessage;
+import com.ticketis.app.dto.jms.ImportBatchMessage.RecordSlice;
+import com.ticketis.app.dto.jms.ImportProgress;
+import com.ticketis.app.exception.ImportNotResumableException;
+import com.ticketis.app.model.ImportHistoryItem;
+import com.ticketis.app.model.enums.BatchStatus;
+import com.ticketis.app.model.enums.ImportStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Resumes distributed imports from their batch manifests. Finished batches are kept, unfinished
+ * ones are sent again starting at their last committed checkpoint. Records up to the furthest slice
+ * an earlier attempt committed may already be in the database, their replay is made idempotent by
+ * natural key; later records go through the normal conflict checks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportResumeService {
+
+    private final ImportHistoryService historyService;
+    private final ImportBatchService batchService;
+    private final ImportProgressTrackingService trackingService;
+    private final AsyncImportService asyncImportService;
+    private final FileStorageService fileStorageService;
+    private final FileImportService fileImportService;
+
+    /**
+     * Resumes every import interrupted by a shutdown. Imports without batch manifests, such as
+     * synchronous ones, cannot be resumed and are marked as failed, queued uploads are queued again.
+     * Imports another node still tracks in the replicated progress cache are left to that node.
+     */
+    public void resumeIncompleteImports() {
+        // stored uploads whose import had not started yet are simply queued again
+        for (ImportHistoryItem item : historyService.getImportsByStatus(List.of(ImportStatus.FILE_UPLOADED))) {
+            try {
+                fileImportService.queueImport(item);
+            } catch (RejectedExecutionException e) {
+                historyService.markAsFailed(item.getId(), "Import queue is full");
+            }
+        }
+
+        List<ImportHistoryItem> incomplete = historyService.getImportsByStatus(
+                List.of(ImportStatus.PENDING, ImportStatus.PROCESSING));
+
+        int resumed = 0;
+        int running = 0;
+        for (ImportHistoryItem item : incomplete) {
+            // still in the replicated progress cache, another node is running it
+            ImportProgress claim = trackingService.claim(item.getId());
+            if (claim == null) {
+                running++;
+                continue;
+            }
+            try {
+                resume(item);
+                resumed++;
+            } catch (Exception e) {
+                trackingService.releaseClaim(claim);
+                log.warn("Import {} was not resumed: {}", item.getId(), e.getMessage());
+                historyService.markAsFailed(item.getId(), "Interrupted by server restart");
+            }
+        }
+        log.info("Resumed {} of {} interrupted imports, {} still running on other nodes", resumed,
+                incomplete.size() - running, running);
+    }
+
+    public void resumeImport(Long importHistoryId) {
+        if (trackingService.isTracked(importHistoryId)) {
+            throw new ImportNotResumableException(importHistoryId, "import is still running");
+        }
+        resume(historyService.getImportItemById(importHistoryId));
+    }
+
+    private void resume(ImportHistoryItem item) {
+        List<ImportBatchEntity> batches = new ArrayList<>(batchService.getBatchesByImportHistoryItemId(item.getId()));
+        if (batches.isEmpty()) {
+            throw new ImportNotResumableException(item.getId(), "no batch manifests were stored");
+        }
+        batches.sort(Comparator.comparing(ImportBatchEntity::getBatchNumber));
+
+        List<ImportBatchEntity> finished = new ArrayList<>();
+        List<ImportBatchEntity> unfinished = new ArrayList<>();
+        for (ImportBatchEntity batch : batches) {
+            boolean pending = BatchStatus.PENDING.name().equals(batch.getBatchStatus())
+                    || BatchStatus.PROCESSING.name().equals(batch.getBatchStatus());
+            (pending ? unfinished : finished).add(batch);
+        }
+        if (unfinished.isEmpty()) {
+            throw new ImportNotResumableException(item.getId(), "all batches are finished");
+        }
+
+        int totalRecords = batches.stream().mapToInt(ImportBatchEntity::getTotalRecords).sum();
+        // manifests are stored in slabs during the scan, the total is only recorded once all of them are
+        if (item.getTotalRecords() == null || item.getTotalRecords() != totalRecords) {
+            throw new ImportNotResumableException(item.getId(), "the file was not fully split into batches");
+        }
+        String fileName = fileStorageService.getFilePath(item.getFilename()).getFileName().toString();
+
+        List<ImportBatchMessage> messages = new ArrayList<>(unfinished.size());
+        for (ImportBatchEntity batch : unfinished) {
+            messages.add(new ImportBatchMessage(
+                    batch.getId(),
+                    item.getId(),
+                    item.getEntityType(),
+                    fileName,
+                    batch.getFirstRecord(),
+                    batch.getTotalRecords(),
+                    batch.getByteOffset(),
+                    batch.getByteLength(),
+                    batch.getBatchNumber(),
+                    batches.size(),
+                    totalRecords,
+                    1,
+                    List.of(new RecordSlice(batch.getCheckpointOffset(), batch.getTotalRecords())),
+                    batch.getCheckpointProcessed(),
+                    batch.getReplayOffset()));
+        }
+
+        historyService.updateStatus(item.getId(), ImportStatus.PROCESSING,
+                String.format("Import resumed: %d of %d batches remaining", unfinished.size(), batches.size()));
+        trackingService.initializeResumedProgress(item.getId(), finished);
+        asyncImportService.dispatch(item.getId(), messages);
+
+        log.info("Resumed import {}: {} of {} batches remaining", item.getId(), unfinished.size(), batches.size());
+    }
+}
@@ -0,0 +1,92 @@
+package com.ticketis.app.service.fileImport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ticketis.app.importProcessor.ImportProcessor;
+import com.ticketis.app.importProcessor.ValidatedChunk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Validates parsed records on a dedicated fork-join pool before they are handed to persistence,
+ * so no transaction or connection is held while records are checked.
+ */
+@Slf4j
+@Service
+public class ImportValidationStage {
+
+    @Value("${app.import.validation.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        log.info("Import validation pool started with parallelism {}", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public ValidatedChunk validate(ImportProcessor processor, List<JsonNode> nodes, int firstNodeIndex) {
+        List<Bound> results = onPool(nodes, node -> {
+            List<String> errors = new ArrayList<>();
+            return new Bound(processor.bind(node, errors), errors);
+        });
+
+        List<Object> valid = new ArrayList<>(nodes.size());
+        List<Integer> indices = new ArrayList<>(nodes.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            int index = firstNodeIndex + i;
+            Bound result = results.get(i);
+            if (result.record() != null) {
+                valid.add(result.record());
+                indices.add(index);
+            } else {
+                String entityPrefix = String.format("Entity[%d]: ", index + 1);
+                for (String error : result.errors()) {
+                    errors.add(entityPrefix + error);
+                }
+            }
+        }
+        return new ValidatedChunk(valid, indices, errors);
+    }
+
+    /**
+     * Validation errors of every record, in record order.
+     */
+    public List<List<String>> validateRecords(ImportProcessor processor, List<JsonNode> nodes) {
+        return onPool(nodes, processor::validate);
+    }
+
+    private <T> List<T> onPool(List<JsonNode> nodes, Function<JsonNode, T> task) {
+        try {
+            return pool.submit(() -> IntStream.range(0, nodes.size())
+                    .parallel()
+                    .mapToObj(i -> task.apply(nodes.get(i)))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private record Bound(Object record, List<String> errors) {
+    }
+}
@@ -3,11 +3,14 @@ package com.ticketis.app.service.fileImport;
 import com.ticketis.app.exception.minio.MinioDeleteFileException;
 import com.ticketis.app.exception.minio.MinioException;
 import com.ticketis.app.exception.minio.MinioUploadFileException;
+import com.ticketis.app.model.ImportHistoryItem;
 import com.ticketis.app.repository.FileOutboxRepository;
+import com.ticketis.app.repository.ImportHistoryRepository;
 import com.ticketis.app.service.MinioService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 import java.nio.file.Files;
@@ -15,9 +18,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.io.InputStream;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
 @Component
@@ -27,11 +34,18 @@ public class MinioOutboxHandler {
 
     private final MinioService minioService;
     private final FileOutboxRepository fileOutboxRepository;
+    private final ImportHistoryRepository importHistoryRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.import.upload.buffer-size:262144}")
+    private int bufferSize;
 
     @JmsListener(destination = "minio.operations.queue")
     @Transactional
     public void handleOutboxEvent(Map<String, Object> message) {
         Long id = ((Number) message.get("id")).longValue();
+        Long importHistoryId = message.get("importHistoryId") == null
+                ? null : ((Number) message.get("importHistoryId")).longValue();
         String operation = (String) message.get("operation");
         String fileName = (String) message.get("fileName");
         String filePath = (String) message.get("filePath");
@@ -41,7 +55,7 @@ public class MinioOutboxHandler {
 
         try {
             if ("UPLOAD".equals(operation)) {
-                handleUpload(id, fileName, filePath);
+                handleUpload(id, importHistoryId, fileName, filePath);
             } else if ("DELETE".equals(operation)) {
                 handleDelete(id, fileName);
             } else {
@@ -61,7 +75,8 @@ public class MinioOutboxHandler {
         }
     }
 
-    private void handleUpload(Long eventId, String fileName, String filePath) throws IOException {
+    private void handleUpload(Long eventId, Long importHistoryId, String fileName, String filePath)
+            throws IOException {
         log.info("Uploading to MinIO: {}", fileName);
 
         Path path = Paths.get(filePath);
@@ -69,23 +84,41 @@ public class MinioOutboxHandler {
             throw new FileNotFoundException("File not found: " + filePath);
         }
 
-        byte[] content = Files.readAllBytes(path);
+        String contentHash = importHistoryId == null ? null : importHistoryRepository.findById(importHistoryId)
+                .map(ImportHistoryItem::getContentHash)
+                .orElse(null);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("eventId", eventId.toString());
+        if (contentHash != null) {
+            metadata.put("sha256", contentHash);
+        }
 
-        try (InputStream stream = new ByteArrayInputStream(content)) {
+        // streamed from disk and hashed on the way, the file is never held in memory
+        MessageDigest digest = FileStorageService.newDigest();
+        try (InputStream stream = new DigestInputStream(
+                new BufferedInputStream(Files.newInputStream(path), bufferSize), digest)) {
             minioService.uploadFile(
                     fileName,
                     stream,
+                    Files.size(path),
                     "application/octet-stream",
-                    Map.of("eventId", eventId.toString()));
+                    metadata);
         } catch (MinioUploadFileException e) {
             log.error("Failed to upload file to MinIO (service unavailable)");
             throw e;
         }
 
+        // the local copy is the only other one, keep it if what was sent is not what was uploaded
+        if (contentHash != null && !contentHash.equals(HexFormat.of().formatHex(digest.digest()))) {
+            minioService.safeDeleteFile(fileName);
+            throw new IOException("Local copy of " + fileName + " changed since it was uploaded");
+        }
+
         log.info("Uploaded to MinIO: {}", fileName);
 
-        Files.deleteIfExists(path);
-        log.debug("Deleted temp file: {}", filePath);
+        // a queued or running import may still read it by path
+        fileStorageService.deleteUploadedCopy(fileName);
+        log.debug("Released temp file: {}", filePath);
     }
 
     private void handleDelete(Long eventId, String fileName) {
@@ -0,0 +1,62 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.util.ImportFileFormat;
+import com.ticketis.app.util.MappedLineParser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses stored uploads on a dedicated pool, so a whole-file pass over a large line oriented upload
+ * is not limited to a single parsing thread.
+ */
+@Slf4j
+@Service
+public class ParallelFileParser {
+
+    @Value("${app.import.parse.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void init() {
+        parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "import-parser-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("Import parser pool started with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Hands the records of a stored file to the consumer in chunks of at most {@code chunkSize}.
+     * For NDJSON and CSV the consumer is called concurrently from the parser threads.
+     *
+     * @return number of records in the file
+     */
+    public int parse(Path filePath, int chunkSize, MappedLineParser.ChunkConsumer chunkConsumer) throws IOException {
+        ImportFileFormat format = ImportFileFormat.of(filePath.getFileName().toString());
+        long started = System.currentTimeMillis();
+        int records = format.parallelStreamRecords(filePath, parallelism, chunkSize, pool, chunkConsumer);
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        log.debug("Parsed {} {} records in {} ms ({} records/s)", records, format, elapsed,
+                records * 1000L / elapsed);
+        return records;
+    }
+}
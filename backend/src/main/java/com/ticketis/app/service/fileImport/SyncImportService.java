@@ -5,15 +5,22 @@ import com.ticketis.app.controller.WebSocketEventController;
 import com.ticketis.app.dto.ImportWebSocketEvent;
 import com.ticketis.app.exception.PassportIdAlreadyExistsException;
 import com.ticketis.app.exception.TicketNameAlreadyExistsException;
+import com.ticketis.app.importProcessor.BatchImportResult;
+import com.ticketis.app.importProcessor.BulkLoad;
 import com.ticketis.app.importProcessor.ImportProcessor;
+import com.ticketis.app.importProcessor.ValidatedChunk;
 import com.ticketis.app.model.enums.ImportStatus;
 import com.ticketis.app.model.enums.WebSocketEventType;
-import jakarta.transaction.Transactional;
+import com.ticketis.app.util.ImportFileFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,42 +33,65 @@ public class SyncImportService {
     private final ImportHistoryService historyService;
     private final ImportProgressTrackingService trackingService;
     private final WebSocketEventController webSocketController;
+    private final ImportValidationStage validationStage;
+
+    @Value("${app.import.copy-engine.chunk-size:10000}")
+    private int bulkChunkSize;
+
+    @Value("${app.import.copy-engine.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Runs the validation stage outside of any transaction, so the import transaction
+     * only spans the writes.
+     */
+    public ValidatedChunk validate(List<JsonNode> nodes, String entityType) {
+        ImportProcessor processor = processorDispatcher.findProcessor(entityType);
+        return validationStage.validate(processor, nodes, 0);
+    }
 
     @Transactional
-    public List<String> startSyncImport(List<JsonNode> nodes, String entityType, String filename,
+    public List<String> startSyncImport(ValidatedChunk chunk, int recordCount, String entityType, String filename,
             Long importHistoryId) {
 
         String taskId = "sync_" + System.currentTimeMillis() + "_" + importHistoryId;
-        log.info("Starting synchronous import task: {} for {} entities", taskId, nodes.size());
+        log.info("Starting synchronous import task: {} for {} entities", taskId, recordCount);
         ImportProcessor processor = processorDispatcher.findProcessor(entityType);
 
         List<String> errors = new ArrayList();
         historyService.updateStatus(importHistoryId, ImportStatus.PENDING,
-                String.format("Synchronous import started. Processing %d records", nodes.size()));
+                String.format("Synchronous import started. Processing %d records", recordCount));
 
-        trackingService.initializeProgress(importHistoryId, 1, nodes.size(), false);
+        trackingService.initializeProgress(importHistoryId, 1, recordCount, false);
 
         try {
-            for (int i = 0; i < nodes.size(); i++) {
-                List<String> entityErrors = processor.importEntity(nodes.get(i), i);
-                errors.addAll(entityErrors);
-
-                if (i % (nodes.size() / 10) == 0) {
-                    historyService.updateStatus(importHistoryId, ImportStatus.PROCESSING,
-                            String.format("Processed %d records", i));
-                    ImportWebSocketEvent event = new ImportWebSocketEvent(
-                            WebSocketEventType.SYNC_IMPORT_PROGRESS_PROCESSING,
-                            importHistoryId);
-                    webSocketController.sendImportEvent(event);
-                }
+            errors.addAll(chunk.getErrors());
+
+            // nothing is written when any record is invalid, sync imports are all or nothing
+            int step = Math.max(1, chunk.size() / 10);
+            for (int from = 0; from < chunk.size() && errors.isEmpty(); from += step) {
+                int to = Math.min(from + step, chunk.size());
+                BatchImportResult result = processor.importBatch(chunk.slice(from, to));
+                errors.addAll(result.getErrors());
+
+                historyService.updateStatus(importHistoryId, ImportStatus.PROCESSING,
+                        String.format("Processed %d records", to));
+                ImportWebSocketEvent event = new ImportWebSocketEvent(
+                        WebSocketEventType.SYNC_IMPORT_PROGRESS_PROCESSING,
+                        importHistoryId);
+                webSocketController.sendImportEvent(event);
             }
 
             if (!errors.isEmpty()) {
+                historyService.updateStatus(importHistoryId, ImportStatus.FAILED, errors.get(0));
+                ImportWebSocketEvent event = new ImportWebSocketEvent(WebSocketEventType.SYNC_IMPORT_PROGRESS_FAILED,
+                        importHistoryId);
+                webSocketController.sendImportEvent(event);
                 throw new RuntimeException("Import failed with " + errors.size() + " errors");
             }
 
             historyService.updateStatus(importHistoryId, ImportStatus.SUCCESS,
-                    String.format("Successfully imported %d ticket(s)", nodes.size()));
+                    String.format("Successfully imported %d ticket(s)", recordCount));
             ImportWebSocketEvent event = new ImportWebSocketEvent(WebSocketEventType.SYNC_IMPORT_PROGRESS_SUCCESS,
                     importHistoryId);
             webSocketController.sendImportEvent(event);
@@ -90,4 +120,76 @@ public class SyncImportService {
 
         return errors;
     }
+
+    /**
+     * All-or-nothing import of a whole stored file through the processor's bulk load. Records are
+     * validated and staged chunk by chunk as the file is read, so only one chunk is on the heap, and
+     * are merged with set-based statements once the file is through. Nothing is written when any
+     * record is invalid or conflicts with stored data. Any exception, read errors included, rolls
+     * back what was already merged.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BatchImportResult startBulkImport(Path filePath, String entityType, Long importHistoryId, int estimatedRecords)
+            throws IOException {
+
+        log.info("Starting bulk import {} for ~{} entities", importHistoryId, estimatedRecords);
+        ImportProcessor processor = processorDispatcher.findProcessor(entityType);
+        ImportFileFormat format = ImportFileFormat.of(filePath.getFileName().toString());
+
+        historyService.updateStatus(importHistoryId, ImportStatus.PENDING,
+                String.format("Bulk import started. Processing ~%d records", estimatedRecords));
+        trackingService.initializeProgress(importHistoryId, 1, estimatedRecords, false);
+
+        List<String> errors = new ArrayList<>();
+        int recordCount;
+        // the connection is busy with the COPY until finish, nothing else may touch the database before it
+        try (BulkLoad load = processor.openBulkLoad(importHistoryId)) {
+            int[] nextRecord = { 0 };
+            recordCount = format.streamRecords(filePath, bulkChunkSize, nodes -> {
+                ValidatedChunk chunk = validationStage.validate(processor, nodes, nextRecord[0]);
+                nextRecord[0] += nodes.size();
+
+                // once a record is invalid nothing will be merged, the rest is only validated for the report
+                addErrors(errors, chunk.getErrors());
+                if (errors.isEmpty()) {
+                    addErrors(errors, load.stage(chunk));
+                }
+                webSocketController.sendImportEvent(new ImportWebSocketEvent(
+                        WebSocketEventType.SYNC_IMPORT_PROGRESS_PROCESSING, importHistoryId));
+            });
+
+            if (errors.isEmpty()) {
+                BatchImportResult result = load.finish(maxReportedErrors);
+                errors.addAll(result.getErrors());
+            }
+        } catch (PassportIdAlreadyExistsException e) {
+            log.error("Bulk import failed (duplicating passport ID)");
+            reportFailure(importHistoryId, e.getMessage());
+            throw e;
+        }
+
+        if (!errors.isEmpty()) {
+            reportFailure(importHistoryId, errors.get(0));
+            throw new RuntimeException("Import failed with " + errors.size() + " errors");
+        }
+
+        historyService.updateStatus(importHistoryId, ImportStatus.SUCCESS,
+                String.format("Successfully imported %d ticket(s)", recordCount));
+        webSocketController.sendImportEvent(new ImportWebSocketEvent(WebSocketEventType.SYNC_IMPORT_PROGRESS_SUCCESS,
+                importHistoryId));
+        return new BatchImportResult(recordCount, errors);
+    }
+
+    private void addErrors(List<String> errors, List<String> newErrors) {
+        int room = maxReportedErrors - errors.size();
+        if (room > 0) {
+            errors.addAll(newErrors.size() <= room ? newErrors : newErrors.subList(0, room));
+        }
+    }
+
+    private void reportFailure(Long importHistoryId, String errorMessage) {
+        historyService.updateStatus(importHistoryId, ImportStatus.FAILED, errorMessage);
+        webSocketController.sendImportEvent(new ImportWebSocketEvent(WebSocketEventType.SYNC_IMPORT_PROGRESS_FAILED,
+                importHistoryId));
+    }
 }
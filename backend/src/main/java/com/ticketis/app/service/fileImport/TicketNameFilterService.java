@@ -0,0 +1,83 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.repository.ImportBulkRepository;
+import com.ticketis.app.util.BloomFilter;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory Bloom filter of existing ticket names. A negative answer means the name is not in the
+ * database, as long as every insert on this node goes through {@link #add}. Inserts made by other
+ * nodes are picked up when the filter is rebuilt, until then the batch-level check still rejects them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TicketNameFilterService {
+
+    private static final long MIN_CAPACITY = 1_000_000;
+
+    private final ImportBulkRepository bulkRepository;
+
+    @Value("${app.import.preflight.name-filter-false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.import.preflight.name-filter-refresh-ms:600000}")
+    private long refreshIntervalMs;
+
+    private volatile BloomFilter filter;
+    private volatile long capacity;
+    private volatile long builtAt;
+    private final AtomicLong insertions = new AtomicLong();
+
+    public boolean mightExist(String name) {
+        return currentFilter().mightContain(name);
+    }
+
+    public void add(String name) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        current.put(name);
+        if (insertions.incrementAndGet() > capacity) {
+            // false positive rate degrades past the planned capacity, rebuild on next use
+            filter = null;
+        }
+    }
+
+    private BloomFilter currentFilter() {
+        BloomFilter current = filter;
+        if (current != null && System.currentTimeMillis() - builtAt < refreshIntervalMs) {
+            return current;
+        }
+        synchronized (this) {
+            if (filter == null || System.currentTimeMillis() - builtAt >= refreshIntervalMs) {
+                rebuild();
+            }
+            return filter;
+        }
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        long existing = bulkRepository.countTickets();
+        long newCapacity = Math.max(MIN_CAPACITY, existing * 2);
+
+        BloomFilter newFilter = new BloomFilter(newCapacity, falsePositiveRate);
+        AtomicLong seeded = new AtomicLong();
+        bulkRepository.forEachTicketName(name -> {
+            newFilter.put(name);
+            seeded.incrementAndGet();
+        });
+
+        capacity = newCapacity;
+        insertions.set(seeded.get());
+        builtAt = System.currentTimeMillis();
+        filter = newFilter;
+        log.info("Ticket name filter rebuilt with {} names in {} ms", seeded.get(), builtAt - started);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * CSV with a header row, converted to the same JSON records the other formats produce. Dotted
+ * header names build nested objects ({@code coordinates.x}), unquoted numbers and booleans are
+ * typed, quoted values and numbers with leading zeros ({@code 0123}) stay text and empty unquoted
+ * values are left out. Every record must
+ * be on a single line, so files can be split at any newline.
+ */
+public class CsvParser {
+
+    private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,18}");
+    private static final Pattern DECIMAL = Pattern.compile("-?\\d+\\.\\d+([eE][-+]?\\d+)?|-?\\d+[eE][-+]?\\d+");
+
+    private static final int MAX_INITIAL_CHUNK_CAPACITY = 1024;
+
+    /**
+     * Reads the header row and hands records to the consumer in chunks of at most {@code chunkSize}.
+     *
+     * @return number of records read
+     */
+    public static int streamRecords(InputStream input, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        BufferedReader reader = LineRanges.newReader(input);
+        String header = LineRanges.stripBom(reader.readLine());
+        if (header == null) {
+            return 0;
+        }
+        return streamRows(reader, parseHeader(header), 1, chunkSize, chunkConsumer);
+    }
+
+    /**
+     * Parses a slice produced by {@link LineRanges#scanRecordRanges} using the file's header row.
+     */
+    public static List<JsonNode> parseRecords(InputStream slice, String header) throws IOException {
+        if (header == null) {
+            throw new IOException("CSV file has no header row");
+        }
+        List<JsonNode> records = new ArrayList<>();
+        streamRows(LineRanges.newReader(slice), parseHeader(header), 0, Integer.MAX_VALUE, records::addAll);
+        return records;
+    }
+
+    private static int streamRows(BufferedReader reader, String[][] columns, int firstLine, int chunkSize,
+            Consumer<List<JsonNode>> chunkConsumer) throws IOException {
+        int total = 0;
+        int lineNumber = firstLine;
+        List<JsonNode> chunk = new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(toRecord(splitLine(line, lineNumber), columns, lineNumber));
+            total++;
+
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+        return total;
+    }
+
+    /**
+     * Column paths of a header row, for {@link #parseLine}.
+     */
+    public static String[][] parseHeader(String header) throws IOException {
+        List<Field> fields = splitLine(LineRanges.stripBom(header), 1);
+        String[][] columns = new String[fields.size()][];
+        for (int i = 0; i < fields.size(); i++) {
+            String name = fields.get(i).value().trim();
+            if (name.isEmpty()) {
+                throw new IOException(String.format("CSV header column %d has no name", i + 1));
+            }
+            columns[i] = name.split("\\.");
+        }
+        return columns;
+    }
+
+    public static ObjectNode parseLine(String line, String[][] columns) throws IOException {
+        return toRecord(splitLine(line, 0), columns, 0);
+    }
+
+    private static ObjectNode toRecord(List<Field> fields, String[][] columns, int lineNumber) throws IOException {
+        if (fields.size() != columns.length) {
+            throw new IOException(String.format("%s has %d fields, header has %d",
+                    where(lineNumber), fields.size(), columns.length));
+        }
+
+        ObjectNode record = nodeFactory.objectNode();
+        for (int i = 0; i < columns.length; i++) {
+            JsonNode value = toValue(fields.get(i));
+            if (value == null) {
+                continue;
+            }
+
+            ObjectNode parent = record;
+            String[] path = columns[i];
+            for (int j = 0; j < path.length - 1; j++) {
+                JsonNode child = parent.get(path[j]);
+                parent = child instanceof ObjectNode ? (ObjectNode) child : parent.putObject(path[j]);
+            }
+            parent.set(path[path.length - 1], value);
+        }
+        return record;
+    }
+
+    private static JsonNode toValue(Field field) {
+        if (field.quoted()) {
+            return nodeFactory.textNode(field.value());
+        }
+
+        String value = field.value().trim();
+        if (value.isEmpty() || value.equals("null")) {
+            return null;
+        }
+        if (value.equals("true") || value.equals("false")) {
+            return nodeFactory.booleanNode(Boolean.parseBoolean(value));
+        }
+        if (hasLeadingZero(value)) {
+            // codes like passport numbers, typing them would drop the zeros
+            return nodeFactory.textNode(value);
+        }
+        if (INTEGER.matcher(value).matches()) {
+            long number = Long.parseLong(value);
+            return number == (int) number ? nodeFactory.numberNode((int) number) : nodeFactory.numberNode(number);
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return nodeFactory.numberNode(Double.parseDouble(value));
+        }
+        return nodeFactory.textNode(value);
+    }
+
+    private static boolean hasLeadingZero(String value) {
+        int first = value.startsWith("-") ? 1 : 0;
+        return value.length() > first + 1 && value.charAt(first) == '0' && Character.isDigit(value.charAt(first + 1));
+    }
+
+    // RFC 4180 fields, except that quoted values may not contain line breaks
+    private static List<Field> splitLine(String line, int lineNumber) throws IOException {
+        List<Field> fields = new ArrayList<>();
+        int length = line.endsWith("\r") ? line.length() - 1 : line.length();
+        int i = 0;
+
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IOException(String.format(
+                                "%s: unterminated quoted value, records must fit on one line", where(lineNumber)));
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < length && line.charAt(i) != ',') {
+                    if (line.charAt(i++) != ' ') {
+                        throw new IOException(String.format(
+                                "%s: unexpected text after quoted value", where(lineNumber)));
+                    }
+                }
+                fields.add(new Field(value.toString(), true));
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0 || end > length) {
+                    end = length;
+                }
+                fields.add(new Field(line.substring(i, end), false));
+                i = end;
+            }
+
+            if (i >= length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    // line numbers are unknown when lines are parsed out of order
+    private static String where(int lineNumber) {
+        return lineNumber > 0 ? "CSV line " + lineNumber : "CSV record";
+    }
+
+    private record Field(String value, boolean quoted) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.ticketis.app.util;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Dates of imported records. The formatters are immutable and shared by all import threads, so no
+ * parser is created per record. Like the {@code SimpleDateFormat} parsing it replaces, trailing text
+ * after a recognized date (a zone suffix, for example) is ignored, a time that does not parse falls
+ * back to the date alone and the time is taken in the server's zone.
+ */
+public class ImportDates {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter SPACED_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    /**
+     * Accepts yyyy-MM-dd'T'HH:mm with optional seconds and fraction, yyyy-MM-dd HH:mm:ss and
+     * yyyy-MM-dd. Text starting with a date whose time is in none of these formats is taken at midnight.
+     *
+     * @return the parsed date or null when the text does not start with a yyyy-MM-dd date
+     */
+    public static Date parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        // the separator after the date picks the format, so a valid date is usually parsed exactly once
+        char separator = text.length() > 10 ? text.charAt(10) : 0;
+        if (separator == 'T' || separator == ' ') {
+            Date dateTime = parse(text, separator == 'T' ? DATE_TIME : SPACED_DATE_TIME);
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return parse(text, DATE);
+    }
+
+    private static Date parse(String text, DateTimeFormatter format) {
+        try {
+            TemporalAccessor parsed = format.parse(text, new ParsePosition(0));
+            LocalDate date = LocalDate.from(parsed);
+            LocalTime time = parsed.isSupported(ChronoField.HOUR_OF_DAY)
+                    ? LocalTime.from(parsed)
+                    : LocalTime.MIDNIGHT;
+            return Date.from(LocalDateTime.of(date, time).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketis.app.util.JsonParser.RecordRange;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Supported import file formats. The format is picked from the file extension, which stored
+ * uploads keep, so workers reading a byte range know how to parse it.
+ */
+public enum ImportFileFormat {
+
+    JSON(".json", List.of(".json"), List.of("application/json")),
+    NDJSON(".ndjson", List.of(".ndjson", ".jsonl"),
+            List.of("application/x-ndjson", "application/ndjson", "application/jsonl", "application/x-jsonlines")),
+    CSV(".csv", List.of(".csv"), List.of("text/csv", "application/csv"));
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String extension;
+    private final List<String> extensions;
+    private final List<String> contentTypes;
+
+    ImportFileFormat(String extension, List<String> extensions, List<String> contentTypes) {
+        this.extension = extension;
+        this.extensions = extensions;
+        this.contentTypes = contentTypes;
+    }
+
+    /**
+     * Format by extension, then by content type, or null if neither is supported.
+     */
+    public static ImportFileFormat detect(String filename, String contentType) {
+        ImportFileFormat format = byExtension(filename);
+        if (format != null || contentType == null) {
+            return format;
+        }
+
+        String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        for (ImportFileFormat candidate : values()) {
+            if (candidate.contentTypes.contains(mediaType)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public static ImportFileFormat of(String filename) {
+        ImportFileFormat format = byExtension(filename);
+        if (format == null) {
+            throw new IllegalArgumentException("Unsupported import file: " + filename);
+        }
+        return format;
+    }
+
+    /**
+     * Appends the format's extension when the upload was recognized by content type only.
+     */
+    public String withExtension(String filename) {
+        return byExtension(filename) == this ? filename : filename + extension;
+    }
+
+    public boolean hasHeader() {
+        return this == CSV;
+    }
+
+    public int streamRecords(Path filePath, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        if (this == JSON) {
+            return JsonParser.streamJsonFile(filePath, chunkSize, chunkConsumer);
+        }
+        try (InputStream input = Files.newInputStream(filePath)) {
+            return streamRecords(input, chunkSize, chunkConsumer);
+        }
+    }
+
+    public int streamRecords(InputStream input, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        return switch (this) {
+            case JSON -> JsonParser.streamJson(input, chunkSize, chunkConsumer);
+            case NDJSON -> NdjsonParser.streamRecords(input, chunkSize, chunkConsumer);
+            case CSV -> CsvParser.streamRecords(input, chunkSize, chunkConsumer);
+        };
+    }
+
+    /**
+     * Streams the records of a stored file. Line formats are memory-mapped and parsed on
+     * {@code parallelism} threads of the executor, the consumer is then called concurrently and out
+     * of order. JSON arrays cannot be split without parsing, they are read on the calling thread.
+     *
+     * @return number of records read
+     */
+    public int parallelStreamRecords(Path filePath, int parallelism, int chunkSize, Executor executor,
+            MappedLineParser.ChunkConsumer chunkConsumer) throws IOException {
+        switch (this) {
+            case NDJSON:
+                return MappedLineParser.parse(filePath, 0, parallelism, chunkSize, executor,
+                        (line, length) -> objectMapper.readTree(line, 0, length), chunkConsumer);
+            case CSV:
+                String header;
+                try (InputStream input = Files.newInputStream(filePath)) {
+                    header = LineRanges.readFirstLine(input);
+                }
+                if (header == null) {
+                    return 0;
+                }
+                String[][] columns = CsvParser.parseHeader(header);
+                return MappedLineParser.parse(filePath, MappedLineParser.skipFirstLine(filePath), parallelism,
+                        chunkSize, executor,
+                        (line, length) -> CsvParser.parseLine(new String(line, 0, length, StandardCharsets.UTF_8),
+                                columns),
+                        chunkConsumer);
+            default:
+                int[] nextRecord = { 0 };
+                return JsonParser.streamJsonFile(filePath, chunkSize, chunk -> {
+                    chunkConsumer.accept(nextRecord[0], chunk);
+                    nextRecord[0] += chunk.size();
+                });
+        }
+    }
+
+    public List<JsonNode> parseFile(Path filePath) throws IOException {
+        if (this == JSON) {
+            return JsonParser.parseJsonFile(filePath);
+        }
+        List<JsonNode> records = new ArrayList<>();
+        streamRecords(filePath, Integer.MAX_VALUE, records::addAll);
+        return records;
+    }
+
+    /**
+     * At most {@code limit} records from the start of a stored file, for profiling it without
+     * reading the rest.
+     */
+    public List<JsonNode> sampleRecords(Path filePath, int limit) throws IOException {
+        if (this == JSON) {
+            return JsonParser.readFirstRecords(filePath, limit);
+        }
+
+        List<JsonNode> records = new ArrayList<>();
+        try (BufferedReader reader = LineRanges.newReader(Files.newInputStream(filePath))) {
+            String line = LineRanges.stripBom(reader.readLine());
+            String[][] columns = null;
+            if (this == CSV) {
+                if (line == null) {
+                    return records;
+                }
+                columns = CsvParser.parseHeader(line);
+                line = reader.readLine();
+            }
+            for (; line != null && records.size() < limit; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    records.add(columns != null ? CsvParser.parseLine(line, columns) : objectMapper.readTree(line));
+                }
+            }
+        }
+        return records;
+    }
+
+    public int estimateRecordCount(Path filePath, int sampleSize) throws IOException {
+        if (this == JSON) {
+            return JsonParser.estimateRecordCount(filePath, sampleSize);
+        }
+        return LineRanges.estimateRecordCount(filePath, hasHeader(), sampleSize);
+    }
+
+    public int scanRecordRanges(Path filePath, int chunkSize, Consumer<RecordRange> rangeConsumer)
+            throws IOException {
+        if (this == JSON) {
+            return JsonParser.scanRecordRanges(filePath, chunkSize, rangeConsumer);
+        }
+        return LineRanges.scanRecordRanges(filePath, hasHeader(), chunkSize, rangeConsumer);
+    }
+
+    /**
+     * Parses a slice produced by {@link #scanRecordRanges}. CSV slices need the file's header row.
+     */
+    public List<JsonNode> parseRecords(InputStream slice, String header) throws IOException {
+        return switch (this) {
+            case JSON -> JsonParser.parseRecords(slice);
+            case NDJSON -> NdjsonParser.parseRecords(slice);
+            case CSV -> CsvParser.parseRecords(slice, header);
+        };
+    }
+
+    private static ImportFileFormat byExtension(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.toLowerCase(Locale.ROOT);
+        for (ImportFileFormat format : values()) {
+            for (String candidate : format.extensions) {
+                if (name.endsWith(candidate)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -1,39 +1,226 @@
 package com.ticketis.app.util;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 public class JsonParser {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    private static final int MAX_INITIAL_CHUNK_CAPACITY = 1024;
 
     public static List<JsonNode> parseJsonFile(Path filePath) throws IOException {
         log.info("Parsing JSON file: {}", filePath);
 
-        String content = Files.readString(filePath);
+        List<JsonNode> nodes = new ArrayList<>();
+        streamJsonFile(filePath, Integer.MAX_VALUE, nodes::addAll);
+
+        log.info("Parsed {} entities from JSON file", nodes.size());
+        return nodes;
+    }
+
+    /**
+     * Reads the file token by token and hands records to the consumer in chunks of
+     * at most {@code chunkSize}, so only one chunk is materialized at a time.
+     * A root array yields its elements, any other root value is a single record.
+     *
+     * @return number of records read
+     */
+    public static int streamJsonFile(Path filePath, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        try (com.fasterxml.jackson.core.JsonParser parser = jsonFactory.createParser(filePath.toFile())) {
+            return streamRecords(parser, chunkSize, chunkConsumer);
+        }
+    }
+
+    /**
+     * Same as {@link #streamJsonFile} for content that is not stored yet, e.g. an upload being checked.
+     */
+    public static int streamJson(InputStream input, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        try (com.fasterxml.jackson.core.JsonParser parser = jsonFactory.createParser(input)) {
+            return streamRecords(parser, chunkSize, chunkConsumer);
+        }
+    }
+
+    private static int streamRecords(com.fasterxml.jackson.core.JsonParser parser, int chunkSize,
+            Consumer<List<JsonNode>> chunkConsumer) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return 0;
+        }
+
+        if (token != JsonToken.START_ARRAY) {
+            List<JsonNode> single = new ArrayList<>(1);
+            single.add(objectMapper.readTree(parser));
+            chunkConsumer.accept(single);
+            return 1;
+        }
+
+        int total = 0;
+        List<JsonNode> chunk = newChunk(chunkSize);
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            chunk.add(objectMapper.readTree(parser));
+            total++;
+
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = newChunk(chunkSize);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+        return total;
+    }
+
+    /**
+     * At most {@code limit} records from the start of the file, the rest is not read.
+     */
+    public static List<JsonNode> readFirstRecords(Path filePath, int limit) throws IOException {
+        List<JsonNode> records = new ArrayList<>(Math.min(limit, MAX_INITIAL_CHUNK_CAPACITY));
+        try (com.fasterxml.jackson.core.JsonParser parser = jsonFactory.createParser(filePath.toFile())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return records;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                records.add(objectMapper.readTree(parser));
+                return records;
+            }
+            while (records.size() < limit && (token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                records.add(objectMapper.readTree(parser));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Skims at most {@code sampleSize} records without building trees. Returns the exact
+     * count when the file ends within the sample, otherwise extrapolates from the bytes
+     * consumed by the sample.
+     */
+    public static int estimateRecordCount(Path filePath, int sampleSize) throws IOException {
+        try (com.fasterxml.jackson.core.JsonParser parser = jsonFactory.createParser(filePath.toFile())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                return 1;
+            }
+
+            int count = 0;
+            while (count < sampleSize
+                    && (token = parser.nextToken()) != null
+                    && token != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+                count++;
+            }
+
+            if (count < sampleSize) {
+                return count;
+            }
+
+            long consumedBytes = parser.getCurrentLocation().getByteOffset();
+            long fileSize = Files.size(filePath);
+            if (consumedBytes <= 0 || consumedBytes >= fileSize) {
+                return count;
+            }
+
+            long estimate = (long) ((double) fileSize / consumedBytes * count);
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(count, estimate));
+        }
+    }
+
+    /**
+     * Skims the file without building trees and reports the byte range of every chunk of at most
+     * {@code chunkSize} records. A range spans from the first record's opening token to the end of
+     * the last one, so it can be read back with {@link #parseRecords(InputStream)}.
+     *
+     * @return number of records in the file
+     */
+    public static int scanRecordRanges(Path filePath, int chunkSize, Consumer<RecordRange> rangeConsumer)
+            throws IOException {
+        try (com.fasterxml.jackson.core.JsonParser parser = jsonFactory.createParser(filePath.toFile())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0;
+            }
+
+            if (token != JsonToken.START_ARRAY) {
+                long start = parser.currentTokenLocation().getByteOffset();
+                parser.skipChildren();
+                parser.finishToken();
+                rangeConsumer.accept(new RecordRange(0, 1, start, parser.currentLocation().getByteOffset() - start));
+                return 1;
+            }
 
-        JsonNode rootNode = objectMapper.readTree(content);
+            int total = 0;
+            int chunkFirstRecord = 0;
+            long chunkStart = 0;
+            long recordEnd = 0;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (total == chunkFirstRecord) {
+                    chunkStart = parser.currentTokenLocation().getByteOffset();
+                }
+                parser.skipChildren();
+                parser.finishToken();
+                recordEnd = parser.currentLocation().getByteOffset();
+                total++;
 
-        if (rootNode.isArray()) {
-            List<JsonNode> nodes = new ArrayList<>();
-            for (JsonNode node : rootNode) {
-                nodes.add(node);
+                if (total - chunkFirstRecord >= chunkSize) {
+                    rangeConsumer.accept(new RecordRange(chunkFirstRecord, total - chunkFirstRecord, chunkStart,
+                            recordEnd - chunkStart));
+                    chunkFirstRecord = total;
+                }
             }
-            log.info("Parsed {} entities from JSON array", nodes.size());
-            return nodes;
-        } else {
-            List<JsonNode> nodes = new ArrayList<>();
-            nodes.add(rootNode);
-            log.info("Parsed single entity from JSON object");
-            return nodes;
+
+            if (total > chunkFirstRecord) {
+                rangeConsumer.accept(new RecordRange(chunkFirstRecord, total - chunkFirstRecord, chunkStart,
+                        recordEnd - chunkStart));
+            }
+            return total;
         }
     }
+
+    /**
+     * Parses a slice of a JSON array produced by {@link #scanRecordRanges}: records separated by commas.
+     */
+    public static List<JsonNode> parseRecords(InputStream slice) throws IOException {
+        InputStream array = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(new byte[] { '[' }),
+                slice,
+                new ByteArrayInputStream(new byte[] { ']' }))));
+
+        List<JsonNode> records = new ArrayList<>();
+        for (JsonNode record : objectMapper.readTree(array)) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    public record RecordRange(int firstRecord, int recordCount, long byteOffset, long byteLength) {
+    }
+
+    private static List<JsonNode> newChunk(int chunkSize) {
+        return new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+    }
 }
@@ -0,0 +1,136 @@
+package com.ticketis.app.util;
+
+import com.ticketis.app.util.JsonParser.RecordRange;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Record boundaries of line oriented files (NDJSON, CSV): one record per non-blank line. Files are
+ * scanned as raw bytes, so a range can be cut at any newline without decoding or parsing records.
+ */
+public class LineRanges {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Reports the byte range of every chunk of at most {@code chunkSize} records. A range starts at
+     * the first record's line and ends after the newline of the last one.
+     *
+     * @return number of records in the file
+     */
+    public static int scanRecordRanges(Path filePath, boolean skipHeader, int chunkSize,
+            Consumer<RecordRange> rangeConsumer) throws IOException {
+        int[] total = { 0 };
+        int[] chunkFirstRecord = { 0 };
+        long[] chunkStart = { 0 };
+        long[] recordEnd = { 0 };
+
+        scanLines(filePath, skipHeader, (start, end) -> {
+            if (total[0] == chunkFirstRecord[0]) {
+                chunkStart[0] = start;
+            }
+            recordEnd[0] = end;
+            total[0]++;
+
+            if (total[0] - chunkFirstRecord[0] >= chunkSize) {
+                rangeConsumer.accept(new RecordRange(chunkFirstRecord[0], total[0] - chunkFirstRecord[0],
+                        chunkStart[0], recordEnd[0] - chunkStart[0]));
+                chunkFirstRecord[0] = total[0];
+            }
+            return true;
+        });
+
+        if (total[0] > chunkFirstRecord[0]) {
+            rangeConsumer.accept(new RecordRange(chunkFirstRecord[0], total[0] - chunkFirstRecord[0],
+                    chunkStart[0], recordEnd[0] - chunkStart[0]));
+        }
+        return total[0];
+    }
+
+    /**
+     * Counts at most {@code sampleSize} records. Returns the exact count when the file ends within
+     * the sample, otherwise extrapolates from the bytes consumed by the sample.
+     */
+    public static int estimateRecordCount(Path filePath, boolean skipHeader, int sampleSize) throws IOException {
+        int[] count = { 0 };
+        long[] consumedBytes = { 0 };
+
+        scanLines(filePath, skipHeader, (start, end) -> {
+            count[0]++;
+            consumedBytes[0] = end;
+            return count[0] < sampleSize;
+        });
+
+        if (count[0] < sampleSize) {
+            return count[0];
+        }
+
+        long fileSize = Files.size(filePath);
+        if (consumedBytes[0] <= 0 || consumedBytes[0] >= fileSize) {
+            return count[0];
+        }
+
+        long estimate = (long) ((double) fileSize / consumedBytes[0] * count[0]);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(count[0], estimate));
+    }
+
+    public static BufferedReader newReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * First line of a file without a UTF-8 byte order mark, or null for an empty file.
+     */
+    public static String readFirstLine(InputStream input) throws IOException {
+        return stripBom(newReader(input).readLine());
+    }
+
+    public static String stripBom(String line) {
+        return line != null && line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    private static void scanLines(Path filePath, boolean skipHeader, LineVisitor visitor) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long position = 0;
+        long lineStart = 0;
+        boolean lineHasContent = false;
+        boolean headerPending = skipHeader;
+
+        try (InputStream input = Files.newInputStream(filePath)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    position++;
+                    if (b == '\n') {
+                        if (headerPending) {
+                            headerPending = false;
+                        } else if (lineHasContent && !visitor.visit(lineStart, position)) {
+                            return;
+                        }
+                        lineStart = position;
+                        lineHasContent = false;
+                    } else if (b != ' ' && b != '\t' && b != '\r') {
+                        lineHasContent = true;
+                    }
+                }
+            }
+        }
+
+        if (lineHasContent && !headerPending) {
+            visitor.visit(lineStart, position);
+        }
+    }
+
+    private interface LineVisitor {
+        // end is exclusive and includes the newline, returns false to stop scanning
+        boolean visit(long start, long end);
+    }
+}
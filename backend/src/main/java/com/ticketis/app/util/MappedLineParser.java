@@ -0,0 +1,261 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses a line oriented file on several threads. The file is memory-mapped and cut into one byte
+ * range per thread at newline boundaries. A first parallel pass counts the records of every range so
+ * each thread knows the index of its first record, the second pass parses the ranges and hands
+ * chunks to the consumer from the parsing threads. Only the chunks being built are on the heap.
+ */
+public class MappedLineParser {
+
+    // mappings are limited to 2 GB, larger ranges are walked window by window
+    private static final long MAX_WINDOW = 256L * 1024 * 1024;
+
+    private static final int MAX_INITIAL_CHUNK_CAPACITY = 1024;
+
+    @FunctionalInterface
+    public interface LineDecoder {
+        JsonNode decode(byte[] line, int length) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        // called concurrently, firstRecord is the index of the chunk's first record in the file
+        void accept(int firstRecord, List<JsonNode> records);
+    }
+
+    /**
+     * @param dataStart offset of the first record line, past a header row if the format has one
+     * @return number of records in the file
+     */
+    public static int parse(Path filePath, long dataStart, int parallelism, int chunkSize, Executor executor,
+            LineDecoder decoder, ChunkConsumer consumer) throws IOException {
+        return parse(filePath, dataStart, parallelism, chunkSize, executor, decoder, consumer, MAX_WINDOW);
+    }
+
+    // a smaller window lets tests cross mapping boundaries with small files
+    static int parse(Path filePath, long dataStart, int parallelism, int chunkSize, Executor executor,
+            LineDecoder decoder, ChunkConsumer consumer, long maxWindow) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long[] bounds = splitAtNewlines(channel, dataStart, parallelism);
+            int ranges = bounds.length - 1;
+
+            if (ranges == 1) {
+                return parseRange(channel, bounds[0], bounds[1], 0, chunkSize, maxWindow, decoder, consumer);
+            }
+
+            int[] counts = join(ranges, executor,
+                    range -> countRecords(channel, bounds[range], bounds[range + 1], maxWindow));
+            int[] firstRecords = new int[ranges];
+            int total = 0;
+            for (int range = 0; range < ranges; range++) {
+                firstRecords[range] = total;
+                total += counts[range];
+            }
+
+            join(ranges, executor, range -> parseRange(channel, bounds[range], bounds[range + 1],
+                    firstRecords[range], chunkSize, maxWindow, decoder, consumer));
+            return total;
+        }
+    }
+
+    /**
+     * Offset just past the first newline, the start of the records in a file with a header row.
+     */
+    public static long skipFirstLine(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return nextLineStart(channel, 0);
+        }
+    }
+
+    private static long[] splitAtNewlines(FileChannel channel, long dataStart, int parallelism) throws IOException {
+        long size = channel.size();
+        int ranges = (int) Math.max(1, Math.min(parallelism, (size - dataStart) / (64 * 1024)));
+        long[] bounds = new long[ranges + 1];
+        bounds[0] = dataStart;
+        for (int i = 1; i < ranges; i++) {
+            long target = dataStart + (size - dataStart) * i / ranges;
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, target));
+        }
+        bounds[ranges] = size;
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        long position = from;
+        while (position < size) {
+            long length = Math.min(64 * 1024, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    private static int countRecords(FileChannel channel, long start, long end, long maxWindow) throws IOException {
+        int[] count = { 0 };
+        walkLines(channel, start, end, maxWindow, (window, lineStart, lineEnd) -> count[0]++);
+        return count[0];
+    }
+
+    private static int parseRange(FileChannel channel, long start, long end, int firstRecord, int chunkSize,
+            long maxWindow, LineDecoder decoder, ChunkConsumer consumer) throws IOException {
+        RangeParser parser = new RangeParser(firstRecord, chunkSize, decoder, consumer);
+        walkLines(channel, start, end, maxWindow, parser);
+        return parser.finish() - firstRecord;
+    }
+
+    /**
+     * Visits every non-blank line in [start, end). Lines exclude the newline, a trailing carriage
+     * return and a byte order mark at the start of the file.
+     */
+    private static void walkLines(FileChannel channel, long start, long end, long maxWindow, LineVisitor visitor)
+            throws IOException {
+        long windowStart = start;
+        while (windowStart < end) {
+            int length = (int) Math.min(maxWindow, end - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            boolean lastWindow = windowStart + length >= end;
+
+            int lineStart = 0;
+            if (windowStart == 0 && length >= 3 && window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB
+                    && window.get(2) == (byte) 0xBF) {
+                lineStart = 3;
+            }
+            boolean hasContent = false;
+            for (int i = lineStart; i < length; i++) {
+                byte b = window.get(i);
+                if (b == '\n') {
+                    if (hasContent) {
+                        visitor.visit(window, lineStart, trimCarriageReturn(window, lineStart, i));
+                    }
+                    lineStart = i + 1;
+                    hasContent = false;
+                } else if (b != ' ' && b != '\t' && b != '\r') {
+                    hasContent = true;
+                }
+            }
+
+            if (lastWindow) {
+                if (hasContent) {
+                    visitor.visit(window, lineStart, trimCarriageReturn(window, lineStart, length));
+                }
+                return;
+            }
+            if (lineStart == 0) {
+                throw new IOException("Line longer than " + maxWindow + " bytes at offset " + windowStart);
+            }
+            // the unfinished line is read again at the start of the next window
+            windowStart += lineStart;
+        }
+    }
+
+    private static int trimCarriageReturn(MappedByteBuffer window, int lineStart, int lineEnd) {
+        return lineEnd > lineStart && window.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static int[] join(int ranges, Executor executor, RangeTask task) throws IOException {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(ranges);
+        for (int range = 0; range < ranges; range++) {
+            int current = range;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.run(current);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+
+        int[] results = new int[ranges];
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            for (int range = 0; range < ranges; range++) {
+                results[range] = futures.get(range).join();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private interface RangeTask {
+        int run(int range) throws IOException;
+    }
+
+    private interface LineVisitor {
+        void visit(MappedByteBuffer window, int lineStart, int lineEnd) throws IOException;
+    }
+
+    private static class RangeParser implements LineVisitor {
+        private final int chunkSize;
+        private final LineDecoder decoder;
+        private final ChunkConsumer consumer;
+        private byte[] line = new byte[4096];
+        private List<JsonNode> chunk;
+        private int chunkFirstRecord;
+        private int nextRecord;
+
+        RangeParser(int firstRecord, int chunkSize, LineDecoder decoder, ChunkConsumer consumer) {
+            this.chunkSize = chunkSize;
+            this.decoder = decoder;
+            this.consumer = consumer;
+            this.chunkFirstRecord = firstRecord;
+            this.nextRecord = firstRecord;
+            this.chunk = newChunk();
+        }
+
+        @Override
+        public void visit(MappedByteBuffer window, int lineStart, int lineEnd) throws IOException {
+            int length = lineEnd - lineStart;
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            window.get(lineStart, line, 0, length);
+            chunk.add(decoder.decode(line, length));
+            nextRecord++;
+
+            if (chunk.size() >= chunkSize) {
+                consumer.accept(chunkFirstRecord, chunk);
+                chunkFirstRecord = nextRecord;
+                chunk = newChunk();
+            }
+        }
+
+        int finish() {
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunkFirstRecord, chunk);
+            }
+            return nextRecord;
+        }
+
+        private List<JsonNode> newChunk() {
+            return new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Newline delimited JSON: one JSON object per line, blank lines are ignored.
+ */
+public class NdjsonParser {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int MAX_INITIAL_CHUNK_CAPACITY = 1024;
+
+    /**
+     * Hands records to the consumer in chunks of at most {@code chunkSize}.
+     *
+     * @return number of records read
+     */
+    public static int streamRecords(InputStream input, int chunkSize, Consumer<List<JsonNode>> chunkConsumer)
+            throws IOException {
+        BufferedReader reader = LineRanges.newReader(input);
+        int total = 0;
+        List<JsonNode> chunk = new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+
+        String line = LineRanges.stripBom(reader.readLine());
+        for (; line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(objectMapper.readTree(line));
+            total++;
+
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CHUNK_CAPACITY));
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+        return total;
+    }
+
+    /**
+     * Parses a slice produced by {@link LineRanges#scanRecordRanges}.
+     */
+    public static List<JsonNode> parseRecords(InputStream slice) throws IOException {
+        List<JsonNode> records = new ArrayList<>();
+        streamRecords(slice, Integer.MAX_VALUE, records::addAll);
+        return records;
+    }
+}
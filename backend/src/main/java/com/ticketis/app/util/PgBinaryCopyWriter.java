@@ -0,0 +1,116 @@
+package com.ticketis.app.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Writes rows in PostgreSQL's binary COPY format. Values are sent in their binary wire form, so the
+ * server neither parses text nor converts types while loading.
+ */
+public class PgBinaryCopyWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+    // timestamps are microseconds since the PostgreSQL epoch
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final DataOutputStream out;
+
+    public PgBinaryCopyWriter(OutputStream target) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(target, 64 * 1024));
+        out.write(SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    public void startRow(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    public void writeInt(Integer value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    public void writeLong(Long value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    public void writeFloat(Float value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        out.writeInt(4);
+        out.writeFloat(value);
+    }
+
+    public void writeDouble(Double value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        out.writeInt(8);
+        out.writeDouble(value);
+    }
+
+    public void writeBoolean(Boolean value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        out.writeInt(1);
+        out.writeByte(value ? 1 : 0);
+    }
+
+    public void writeText(String value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a timestamp without time zone holding the date's wall-clock time in the server's zone,
+     * the value JDBC would store for the same date.
+     */
+    public void writeTimestamp(Date value) throws IOException {
+        if (isNull(value)) {
+            return;
+        }
+        LocalDateTime local = LocalDateTime.ofInstant(value.toInstant(), ZoneId.systemDefault());
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, local));
+    }
+
+    /**
+     * Writes the trailer and closes the target stream, which ends the COPY.
+     */
+    @Override
+    public void close() throws IOException {
+        out.writeShort(-1);
+        out.close();
+    }
+
+    private boolean isNull(Object value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,28 +1,42 @@
+CREATE SEQUENCE IF NOT EXISTS locations_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS locations (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('locations_id_seq'),
     x FLOAT NOT NULL,
     y INTEGER NOT NULL,
     z DOUBLE PRECISION NOT NULL,
     name VARCHAR(255)
 );
 
+ALTER SEQUENCE locations_id_seq OWNED BY locations.id;
+
+CREATE SEQUENCE IF NOT EXISTS venues_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS venues (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('venues_id_seq'),
     name VARCHAR(255) NOT NULL CHECK (name <> ''),
     capacity INTEGER NOT NULL CHECK (capacity > 0),
     type VARCHAR
 );
 
+ALTER SEQUENCE venues_id_seq OWNED BY venues.id;
+
+CREATE SEQUENCE IF NOT EXISTS events_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS events (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('events_id_seq'),
     name VARCHAR(255) NOT NULL CHECK (name <> ''),
     date TIMESTAMP,
     min_age INTEGER CHECK (min_age >= 0),
     description TEXT NOT NULL
 );
 
+ALTER SEQUENCE events_id_seq OWNED BY events.id;
+
+CREATE SEQUENCE IF NOT EXISTS persons_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS persons (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('persons_id_seq'),
     eye_color VARCHAR NOT NULL,
     hair_color VARCHAR NOT NULL,
     location_id INTEGER REFERENCES locations(id),
@@ -30,14 +44,22 @@ CREATE TABLE IF NOT EXISTS persons (
     nationality VARCHAR
 );
 
+ALTER SEQUENCE persons_id_seq OWNED BY persons.id;
+
+CREATE SEQUENCE IF NOT EXISTS coordinates_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS coordinates (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('coordinates_id_seq'),
     x INTEGER NOT NULL CHECK (x > -201),
     y DOUBLE PRECISION NOT NULL CHECK (y > -5)
 );
 
+ALTER SEQUENCE coordinates_id_seq OWNED BY coordinates.id;
+
+CREATE SEQUENCE IF NOT EXISTS tickets_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS tickets (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('tickets_id_seq'),
     name VARCHAR(255) NOT NULL CHECK (name <> ''),
     coordinates_id INTEGER NOT NULL REFERENCES coordinates(id),
     creation_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -51,6 +73,8 @@ CREATE TABLE IF NOT EXISTS tickets (
     venue_id INTEGER NOT NULL REFERENCES venues(id)
 );
 
+ALTER SEQUENCE tickets_id_seq OWNED BY tickets.id;
+
 CREATE TABLE IF NOT EXISTS import_history (
     id SERIAL PRIMARY KEY,
     filename VARCHAR(255) NOT NULL CHECK (filename <> ''),
@@ -59,23 +83,41 @@ CREATE TABLE IF NOT EXISTS import_history (
     processed_records INTEGER,
     total_records INTEGER,
     error_count INTEGER,
+    import_strategy VARCHAR(32),
+    plan_details VARCHAR(1024),
+    content_hash VARCHAR(64),
     import_status VARCHAR(255) NOT NULL,
     result_description VARCHAR(1024) NOT NULL DEFAULT '-' CHECK (result_description <> '')
 );
 
+CREATE SEQUENCE IF NOT EXISTS import_batches_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS import_batches (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('import_batches_id_seq'),
     import_id INTEGER NOT NULL REFERENCES import_history(id),
     batch_number INTEGER NOT NULL CHECK (batch_number >= 0),
     batch_size INTEGER NOT NULL CHECK (batch_size >= 0),
     batch_status VARCHAR(255) NOT NULL,
-    records TEXT,
+    first_record INTEGER,
+    byte_offset BIGINT,
+    byte_length BIGINT,
     total_records INTEGER NOT NULL CHECK (total_records >= 0),
-    processed_records INTEGER NOT NULL CHECK (processed_records >= 0)
+    processed_records INTEGER NOT NULL CHECK (processed_records >= 0),
+    checkpoint_offset INTEGER NOT NULL DEFAULT 0,
+    checkpoint_processed INTEGER NOT NULL DEFAULT 0
 );
 
+ALTER SEQUENCE import_batches_id_seq OWNED BY import_batches.id;
+
 CREATE INDEX ticket_name ON tickets USING HASH (name);
 
+CREATE INDEX IF NOT EXISTS locations_natural_key ON locations (y, z);
+CREATE INDEX IF NOT EXISTS venues_natural_key ON venues (name, capacity);
+CREATE INDEX IF NOT EXISTS events_natural_key ON events (name, date);
+CREATE INDEX IF NOT EXISTS coordinates_natural_key ON coordinates (x, y);
+CREATE INDEX IF NOT EXISTS import_batches_import_status ON import_batches (import_id, batch_status);
+CREATE INDEX IF NOT EXISTS import_history_content_hash ON import_history (content_hash);
+
 CREATE TABLE IF NOT EXISTS file_outbox (
     id SERIAL PRIMARY KEY,
     import_history_id BIGINT NOT NULL REFERENCES import_history(id),
@@ -0,0 +1,34 @@
+CREATE UNLOGGED TABLE IF NOT EXISTS ticket_import_staging (
+    import_id BIGINT NOT NULL,
+    ord INTEGER NOT NULL,
+    name VARCHAR NOT NULL,
+    coordinates_id BIGINT,
+    coord_x INTEGER,
+    coord_y DOUBLE PRECISION,
+    person_id BIGINT,
+    eye_color VARCHAR,
+    hair_color VARCHAR,
+    passport_id VARCHAR,
+    nationality VARCHAR,
+    location_id BIGINT,
+    loc_x REAL,
+    loc_y INTEGER,
+    loc_z DOUBLE PRECISION,
+    loc_name VARCHAR,
+    event_id BIGINT,
+    event_name VARCHAR,
+    event_date TIMESTAMP,
+    event_min_age INTEGER,
+    event_description TEXT,
+    price BIGINT NOT NULL,
+    type VARCHAR,
+    discount REAL,
+    number DOUBLE PRECISION NOT NULL,
+    refundable BOOLEAN NOT NULL,
+    venue_id BIGINT,
+    venue_name VARCHAR,
+    venue_capacity INTEGER,
+    venue_type VARCHAR
+);
+
+CREATE INDEX IF NOT EXISTS ticket_import_staging_import ON ticket_import_staging (import_id, ord);
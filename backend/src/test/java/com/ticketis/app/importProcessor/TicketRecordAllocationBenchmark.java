@@ -0,0 +1,128 @@
+package com.ticketis.app.importProcessor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketis.app.service.ImportValidator;
+import com.ticketis.app.util.PgBinaryCopyWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap cost of the ticket import path per record, without a database: parsing an NDJSON line into a
+ * tree, binding the tree into a {@link TicketRecord} and writing its staging row, and the heap a
+ * chunk retains as parsed trees and as bound records. Not run by the build, start it with
+ * <pre>
+ * java -XX:+UseSerialGC -cp target/classes:target/test-classes:$(cat classpath.txt) \
+ *     com.ticketis.app.importProcessor.TicketRecordAllocationBenchmark [records]
+ * </pre>
+ * after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=classpath.txt}.
+ */
+public final class TicketRecordAllocationBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ImportValidator VALIDATOR = new ImportValidator(null);
+
+    private TicketRecordAllocationBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<byte[]> lines = generate(count);
+
+        for (int round = 0; round < 5; round++) {
+            stage(bind(parse(lines)));
+        }
+
+        long started = allocatedBytes();
+        List<JsonNode> trees = parse(lines);
+        long parsed = allocatedBytes();
+        List<TicketRecord> records = bind(trees);
+        long bound = allocatedBytes();
+        stage(records);
+        long staged = allocatedBytes();
+
+        System.out.printf("records: %d%n", count);
+        System.out.printf("allocated per record: parse %d B, bind %d B, staging row %d B%n",
+                (parsed - started) / count, (bound - parsed) / count, (staged - bound) / count);
+
+        trees = null;
+        records = null;
+        long base = usedHeapAfterGc();
+        trees = parse(lines);
+        long withTrees = usedHeapAfterGc();
+        records = bind(trees);
+        trees = null;
+        long withRecords = usedHeapAfterGc();
+        System.out.printf("retained per record: parsed tree %d B, bound record %d B%n",
+                (withTrees - base) / count, (withRecords - base) / count);
+        System.out.println(records.size());
+    }
+
+    // every fourth ticket references existing rows by id, the others embed all nested objects
+    private static List<byte[]> generate(int count) {
+        List<byte[]> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String line = i % 4 == 3
+                    ? String.format("{\"name\":\"Ticket %d\",\"price\":%d,\"number\":%d.5,\"refundable\":false,"
+                            + "\"coordinatesId\":%d,\"personId\":%d,\"eventId\":%d,\"venueId\":%d}",
+                            i, 100 + i % 900, i % 50, 1 + i % 100, 1 + i % 100, 1 + i % 100, 1 + i % 100)
+                    : String.format("{\"name\":\"Ticket %d\",\"price\":%d,\"number\":%d.5,\"refundable\":true,"
+                            + "\"type\":\"VIP\",\"discount\":15,\"coordinates\":{\"x\":%d,\"y\":%d.25},"
+                            + "\"person\":{\"eyeColor\":\"GREEN\",\"hairColor\":\"BLUE\",\"passportID\":\"P%d\","
+                            + "\"nationality\":\"ITALY\",\"location\":{\"x\":1.5,\"y\":%d,\"z\":2.5,"
+                            + "\"name\":\"City %d\"}},\"event\":{\"name\":\"Event %d\",\"description\":\"Live\","
+                            + "\"date\":\"2025-06-%02dT20:00:00\",\"minAge\":18},"
+                            + "\"venue\":{\"name\":\"Venue %d\",\"capacity\":%d,\"type\":\"LOFT\"}}",
+                            i, 100 + i % 900, i % 50, i % 200, i % 30, i, i % 10, i % 10, i % 20, 1 + i % 28,
+                            i % 20, 100 + i % 400);
+            lines.add(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    private static List<JsonNode> parse(List<byte[]> lines) throws IOException {
+        List<JsonNode> trees = new ArrayList<>(lines.size());
+        for (byte[] line : lines) {
+            trees.add(MAPPER.readTree(line, 0, line.length));
+        }
+        return trees;
+    }
+
+    private static List<TicketRecord> bind(List<JsonNode> trees) {
+        List<TicketRecord> records = new ArrayList<>(trees.size());
+        List<String> errors = new ArrayList<>();
+        for (JsonNode tree : trees) {
+            records.add(VALIDATOR.bindTicket(tree, errors));
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Generated records are invalid: " + errors.get(0));
+        }
+        return records;
+    }
+
+    private static void stage(List<TicketRecord> records) throws IOException {
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(OutputStream.nullOutputStream())) {
+            for (int i = 0; i < records.size(); i++) {
+                TicketBulkLoad.writeRow(writer, 1L, i, records.get(i));
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
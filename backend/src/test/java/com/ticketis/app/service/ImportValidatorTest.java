@@ -0,0 +1,139 @@
+package com.ticketis.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketis.app.importProcessor.TicketRecord;
+import com.ticketis.app.model.enums.Color;
+import com.ticketis.app.model.enums.Country;
+import com.ticketis.app.model.enums.TicketType;
+import com.ticketis.app.model.enums.VenueType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportValidatorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ImportValidator validator = new ImportValidator(null);
+
+    @Test
+    void bindsEmbeddedObjectsIntoFlatRecord() throws Exception {
+        List<String> errors = new ArrayList<>();
+        TicketRecord record = validator.bindTicket(json("""
+                {"name": "Concert", "price": 150, "number": 2.5, "refundable": true, "type": "vip",
+                 "discount": 10, "coordinates": {"x": -5, "y": 1.5},
+                 "person": {"eyeColor": "GREEN", "hairColor": "blue", "passportID": "P-1",
+                            "nationality": "ITALY", "location": {"x": 1.5, "y": 2, "z": 3.5, "name": "Home"}},
+                 "event": {"name": "Tour", "description": "Live", "date": "2024-03-15", "minAge": 18},
+                 "venue": {"name": "Arena", "capacity": 500, "type": "open_area"}}
+                """), errors);
+
+        assertThat(errors).isEmpty();
+        assertThat(record.getName()).isEqualTo("Concert");
+        assertThat(record.getPrice()).isEqualTo(150);
+        assertThat(record.getNumber()).isEqualTo(2.5);
+        assertThat(record.isRefundable()).isTrue();
+        assertThat(record.getType()).isSameAs(TicketType.VIP);
+        assertThat(record.getDiscount()).isEqualTo(10f);
+        assertThat(record.getCoordinatesId()).isNull();
+        assertThat(record.getCoordinatesX()).isEqualTo(-5);
+        assertThat(record.getCoordinatesY()).isEqualTo(1.5);
+        assertThat(record.hasEmbeddedPerson()).isTrue();
+        assertThat(record.getEyeColor()).isSameAs(Color.GREEN);
+        assertThat(record.getHairColor()).isSameAs(Color.BLUE);
+        assertThat(record.getPassportId()).isEqualTo("P-1");
+        assertThat(record.getNationality()).isSameAs(Country.ITALY);
+        assertThat(record.hasLocation()).isTrue();
+        assertThat(record.getLocationX()).isEqualTo(1.5f);
+        assertThat(record.getLocationY()).isEqualTo(2);
+        assertThat(record.getLocationZ()).isEqualTo(3.5);
+        assertThat(record.getLocationName()).isEqualTo("Home");
+        assertThat(record.hasEmbeddedEvent()).isTrue();
+        assertThat(record.getEventDate()).isNotNull();
+        assertThat(record.getEventMinAge()).isEqualTo(18);
+        assertThat(record.getVenueName()).isEqualTo("Arena");
+        assertThat(record.getVenueCapacity()).isEqualTo(500);
+        assertThat(record.getVenueType()).isSameAs(VenueType.OPEN_AREA);
+    }
+
+    @Test
+    void referenceIdsTakePrecedenceOverEmbeddedObjects() throws Exception {
+        List<String> errors = new ArrayList<>();
+        TicketRecord record = validator.bindTicket(json("""
+                {"name": "Concert", "price": 1, "number": 1, "refundable": false,
+                 "coordinatesId": 7, "coordinates": {"x": 1, "y": 1},
+                 "personId": 8, "person": {"eyeColor": "GREEN", "hairColor": "BLUE", "passportID": "P-1"},
+                 "eventId": 9, "venueId": 10, "venue": null}
+                """), errors);
+
+        assertThat(errors).isEmpty();
+        assertThat(record.getCoordinatesId()).isEqualTo(7L);
+        assertThat(record.getPersonId()).isEqualTo(8L);
+        assertThat(record.hasEmbeddedPerson()).isFalse();
+        assertThat(record.getPassportId()).isNull();
+        assertThat(record.getEventId()).isEqualTo(9L);
+        assertThat(record.hasEmbeddedEvent()).isFalse();
+        assertThat(record.getVenueId()).isEqualTo(10L);
+        assertThat(record.getType()).isNull();
+        assertThat(record.getDiscount()).isNull();
+    }
+
+    @Test
+    void numericValuesOfTextFieldsAreTakenAsText() throws Exception {
+        List<String> errors = new ArrayList<>();
+        TicketRecord record = validator.bindTicket(json("""
+                {"name": 123, "price": 1, "number": 1, "refundable": true, "coordinatesId": 1, "venueId": 1,
+                 "person": {"eyeColor": "WHITE", "hairColor": "WHITE", "passportID": 4567}}
+                """), errors);
+
+        assertThat(errors).isEmpty();
+        assertThat(record.getName()).isEqualTo("123");
+        assertThat(record.getPassportId()).isEqualTo("4567");
+        assertThat(record.hasLocation()).isFalse();
+    }
+
+    @Test
+    void invalidRecordReportsEveryErrorAndBindsNothing() throws Exception {
+        List<String> errors = new ArrayList<>();
+        TicketRecord record = validator.bindTicket(json("""
+                {"name": " ", "price": 0, "number": "two", "refundable": "yes", "coordinatesId": "1",
+                 "type": "premium", "discount": 120,
+                 "person": {"eyeColor": "RED", "hairColor": "BLUE", "passportID": "P-1"},
+                 "event": {"name": "Tour", "description": "Live", "minAge": "adult"}}
+                """), errors);
+
+        assertThat(record).isNull();
+        assertThat(errors).containsExactly(
+                "ticket.name cannot be blank",
+                "ticket.coordinatesId must be an integer",
+                "Ticket.price must be > 0, got: 0",
+                "ticket.number must be a number",
+                "Ticket.refundable must be a boolean",
+                "Ticket must have either venue object or venueId",
+                "Ticket.discount must be between 0 and 100, got: 120.0",
+                "Ticket.type must be one of: " + String.join(", ", TicketType.getNames()),
+                "Person.eyeColor must be one of: " + String.join(", ", Color.getNames()),
+                "event.minAge must be an integer");
+    }
+
+    @Test
+    void nonObjectsAreRejected() throws Exception {
+        List<String> errors = new ArrayList<>();
+
+        assertThat(validator.bindTicket(json("[]"), errors)).isNull();
+        assertThat(validator.bindTicket(json("""
+                {"name": "a", "price": 1, "number": 1, "refundable": true, "coordinates": 5, "venue": "x"}
+                """), errors)).isNull();
+
+        assertThat(errors).containsExactly("Ticket must be an object", "Coordinates must be an object",
+                "Venue must be an object");
+    }
+
+    private static JsonNode json(String text) throws Exception {
+        return MAPPER.readTree(text);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ticketis.app.service.fileImport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketis.app.exception.importBusinessException.FileImportValidationException;
+import com.ticketis.app.repository.ImportBulkRepository;
+import com.ticketis.app.util.MappedLineParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImportPreflightServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TicketNameFilterService nameFilterService = mock(TicketNameFilterService.class);
+    private final ImportBulkRepository bulkRepository = mock(ImportBulkRepository.class);
+    private final ParallelFileParser fileParser = mock(ParallelFileParser.class);
+    private ImportPreflightService preflightService;
+
+    @BeforeEach
+    void setUp() {
+        preflightService = new ImportPreflightService(nameFilterService, bulkRepository, fileParser);
+        ReflectionTestUtils.setField(preflightService, "queryChunkSize", 5000);
+        ReflectionTestUtils.setField(preflightService, "maxReportedConflicts", 20);
+    }
+
+    @Test
+    void duplicateNamesAreNumberedFromOne() throws Exception {
+        givenRecords("a", "b", "a");
+        when(nameFilterService.mightExist(anyString())).thenReturn(false);
+
+        List<String> errors = failedChecks();
+
+        assertThat(errors).containsExactly("Entity[3]: Ticket name 'a' duplicates Entity[1]");
+    }
+
+    @Test
+    void storedNamesAreNumberedFromOne() throws Exception {
+        givenRecords("a", "b");
+        when(nameFilterService.mightExist(anyString())).thenReturn(true);
+        when(bulkRepository.findExistingTicketNames(any())).thenReturn(Set.of("b"));
+
+        List<String> errors = failedChecks();
+
+        assertThat(errors).containsExactly("Entity[2]: Ticket with name 'b' already exists");
+    }
+
+    private List<String> failedChecks() {
+        FileImportValidationException e = assertThrows(FileImportValidationException.class,
+                () -> preflightService.checkUniqueNames(Path.of("tickets.json"), "ticket"));
+        return e.getErrors();
+    }
+
+    private void givenRecords(String... names) throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+        for (String name : names) {
+            records.add(MAPPER.createObjectNode().put("name", name));
+        }
+        doAnswer(invocation -> {
+            invocation.getArgument(2, MappedLineParser.ChunkConsumer.class).accept(0, records);
+            return records.size();
+        }).when(fileParser).parse(any(), anyInt(), any());
+    }
+}
@@ -0,0 +1,97 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.config.ImportProgressCacheConfig;
+import com.ticketis.app.controller.WebSocketEventController;
+import com.ticketis.app.model.enums.BatchStatus;
+import com.ticketis.app.model.enums.ImportStatus;
+import org.infinispan.manager.EmbeddedCacheManager;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Second tracking node of {@link ImportProgressProcessReplicationTest}, started in its own JVM.
+ * Prints READY once both nodes are members, reports its batches on REPORT and prints DONE with the
+ * number of SUCCESS statuses it stored, then stops on STOP or when its input closes.
+ * Arguments: import id, first batch id, last batch id, step, records per batch.
+ */
+public final class ImportProgressNodeProcess {
+
+    static final String CLUSTER = "import-progress-process-test";
+    static final String JGROUPS_CONFIG = "jgroups-test-processes.xml";
+
+    private ImportProgressNodeProcess() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long importId = Long.parseLong(args[0]);
+        long firstBatch = Long.parseLong(args[1]);
+        long lastBatch = Long.parseLong(args[2]);
+        int step = Integer.parseInt(args[3]);
+        int recordsPerBatch = Integer.parseInt(args[4]);
+
+        ImportHistoryService historyService = mock(ImportHistoryService.class);
+        EmbeddedCacheManager manager = ImportProgressCacheConfig.createCacheManager(true, CLUSTER, JGROUPS_CONFIG, 1);
+        ImportProgressTrackingService node = trackingService(manager, historyService);
+        try {
+            while (manager.getMembers().size() < 2) {
+                Thread.sleep(50);
+            }
+            System.out.println("READY");
+
+            BufferedReader commands = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            if ("REPORT".equals(commands.readLine())) {
+                reportBatches(node, importId, firstBatch, lastBatch, step, recordsPerBatch);
+                System.out.println("DONE " + successUpdates(historyService));
+                commands.readLine();
+            }
+        } finally {
+            manager.stop();
+        }
+        System.exit(0);
+    }
+
+    static ImportProgressTrackingService trackingService(EmbeddedCacheManager manager,
+            ImportHistoryService historyService) {
+        return new ImportProgressTrackingService(mock(WebSocketEventController.class), historyService,
+                manager.getCache(ImportProgressCacheConfig.IMPORT_PROGRESS_CACHE),
+                manager.getCache(ImportProgressCacheConfig.BATCH_PROGRESS_CACHE));
+    }
+
+    // every batch is reported twice, first in progress and then finished
+    static void reportBatches(ImportProgressTrackingService node, long importId, long firstBatch, long lastBatch,
+            int step, int recordsPerBatch) throws Exception {
+        ExecutorService reporters = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> reports = new ArrayList<>();
+            for (long batchId = firstBatch; batchId <= lastBatch; batchId += step) {
+                long id = batchId;
+                reports.add(reporters.submit(() -> {
+                    node.updateBatchProgress(importId, id, recordsPerBatch / 2, 0, BatchStatus.PROCESSING);
+                    node.updateBatchProgress(importId, id, recordsPerBatch, 0, BatchStatus.SUCCESS);
+                }));
+            }
+            for (Future<?> report : reports) {
+                report.get();
+            }
+        } finally {
+            reporters.shutdownNow();
+        }
+    }
+
+    static long successUpdates(ImportHistoryService historyService) {
+        return mockingDetails(historyService).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("updateStatus")
+                        && invocation.getArguments()[1] == ImportStatus.SUCCESS)
+                .count();
+    }
+}
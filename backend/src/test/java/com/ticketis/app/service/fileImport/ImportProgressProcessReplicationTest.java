@@ -0,0 +1,121 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.config.ImportProgressCacheConfig;
+import com.ticketis.app.dto.jms.ImportProgress;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The replicated progress cache across two JVMs: this one and an {@link ImportProgressNodeProcess}
+ * child, each reporting half of the batches of the same import.
+ */
+class ImportProgressProcessReplicationTest {
+
+    private static final long IMPORT_ID = 42L;
+    private static final int BATCHES = 200;
+    private static final int RECORDS_PER_BATCH = 10;
+
+    private final ImportHistoryService historyService = mock(ImportHistoryService.class);
+    private final ExecutorService childOutput = Executors.newSingleThreadExecutor();
+    private EmbeddedCacheManager manager;
+    private ImportProgressTrackingService node;
+    private Process child;
+    private BufferedReader childLines;
+    private Writer childCommands;
+
+    @BeforeEach
+    void startNodes() throws Exception {
+        manager = ImportProgressCacheConfig.createCacheManager(true, ImportProgressNodeProcess.CLUSTER,
+                ImportProgressNodeProcess.JGROUPS_CONFIG, 1);
+        node = ImportProgressNodeProcess.trackingService(manager, historyService);
+
+        // the child reports the even batches, this JVM the odd ones
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ImportProgressNodeProcess.class.getName(), String.valueOf(IMPORT_ID), "2", String.valueOf(BATCHES),
+                "2", String.valueOf(RECORDS_PER_BATCH))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        childLines = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+        childCommands = new OutputStreamWriter(child.getOutputStream(), StandardCharsets.UTF_8);
+
+        awaitChild("READY");
+    }
+
+    @AfterEach
+    void stopNodes() throws Exception {
+        try {
+            childCommands.write("STOP\n");
+            childCommands.flush();
+        } catch (IOException e) {
+            // the child is gone already
+        }
+        if (!child.waitFor(30, TimeUnit.SECONDS)) {
+            child.destroyForcibly();
+        }
+        childOutput.shutdownNow();
+        manager.stop();
+    }
+
+    @Test
+    void reportsFromBothProcessesAreCountedAndCompletedOnce() throws Exception {
+        node.initializeStreamingProgress(IMPORT_ID);
+        node.completeDispatch(IMPORT_ID, BATCHES, BATCHES * RECORDS_PER_BATCH);
+
+        childCommands.write("REPORT\n");
+        childCommands.flush();
+        ImportProgressNodeProcess.reportBatches(node, IMPORT_ID, 1, BATCHES, 2, RECORDS_PER_BATCH);
+        String done = awaitChild("DONE ");
+
+        long completions = ImportProgressNodeProcess.successUpdates(historyService)
+                + Long.parseLong(done.substring("DONE ".length()));
+        assertThat(completions).as("SUCCESS stored by either node").isEqualTo(1);
+        assertThat(node.isTracked(IMPORT_ID)).isFalse();
+    }
+
+    @Test
+    void progressOfBothProcessesIsReplicated() throws Exception {
+        node.initializeStreamingProgress(IMPORT_ID);
+
+        childCommands.write("REPORT\n");
+        childCommands.flush();
+        ImportProgressNodeProcess.reportBatches(node, IMPORT_ID, 1, BATCHES, 2, RECORDS_PER_BATCH);
+        awaitChild("DONE ");
+
+        ImportProgress progress = node.getProgress(IMPORT_ID);
+        assertThat(progress.getCompletedBatches()).isEqualTo(BATCHES);
+        assertThat(progress.getTotalProcessed()).isEqualTo(BATCHES * RECORDS_PER_BATCH);
+        assertThat(progress.isDispatchCompleted()).isFalse();
+    }
+
+    // the child's output also carries its log, the protocol lines are picked out of it
+    private String awaitChild(String prefix) throws Exception {
+        Future<String> line = childOutput.submit(() -> {
+            String next;
+            while ((next = childLines.readLine()) != null) {
+                if (next.startsWith(prefix)) {
+                    return next;
+                }
+            }
+            throw new IllegalStateException("Child exited with " + child.waitFor() + " before " + prefix);
+        });
+        return line.get(60, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,168 @@
+package com.ticketis.app.service.fileImport;
+
+import com.ticketis.app.config.ImportProgressCacheConfig;
+import com.ticketis.app.controller.WebSocketEventController;
+import com.ticketis.app.dto.jms.ImportProgress;
+import com.ticketis.app.model.enums.BatchStatus;
+import com.ticketis.app.model.enums.ImportStatus;
+import org.infinispan.Cache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Two replicated progress cache managers in one JVM, standing in for two nodes consuming batches
+ * of the same import.
+ */
+class ImportProgressReplicationTest {
+
+    private static final Long IMPORT_ID = 42L;
+    private static final int BATCHES = 200;
+    private static final int RECORDS_PER_BATCH = 10;
+
+    private final ImportHistoryService historyService = mock(ImportHistoryService.class);
+    private final WebSocketEventController webSocketEventController = mock(WebSocketEventController.class);
+    private EmbeddedCacheManager firstManager;
+    private EmbeddedCacheManager secondManager;
+    private ImportProgressTrackingService firstNode;
+    private ImportProgressTrackingService secondNode;
+    private ExecutorService reporters;
+
+    @BeforeEach
+    void startCluster() throws InterruptedException {
+        firstManager = startManager();
+        secondManager = startManager();
+        firstNode = trackingService(firstManager);
+        secondNode = trackingService(secondManager);
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (firstManager.getMembers().size() < 2 || secondManager.getMembers().size() < 2) {
+            assertThat(System.currentTimeMillis()).as("cluster formed").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        reporters = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void stopCluster() {
+        reporters.shutdownNow();
+        secondManager.stop();
+        firstManager.stop();
+    }
+
+    @Test
+    void concurrentReportsFromBothNodesAreAllCounted() throws Exception {
+        firstNode.initializeStreamingProgress(IMPORT_ID);
+
+        reportAllBatches();
+
+        ImportProgress onFirst = firstNode.getProgress(IMPORT_ID);
+        ImportProgress onSecond = secondNode.getProgress(IMPORT_ID);
+        assertThat(onFirst).isEqualTo(onSecond);
+        assertThat(onFirst.getCompletedBatches()).isEqualTo(BATCHES);
+        assertThat(onFirst.getTotalProcessed()).isEqualTo(BATCHES * RECORDS_PER_BATCH);
+        assertThat(onFirst.isDispatchCompleted()).isFalse();
+    }
+
+    @Test
+    void completionIsReportedByOneNode() throws Exception {
+        firstNode.initializeStreamingProgress(IMPORT_ID);
+        firstNode.completeDispatch(IMPORT_ID, BATCHES, BATCHES * RECORDS_PER_BATCH);
+
+        reportAllBatches();
+
+        verify(historyService, times(1)).updateStatus(IMPORT_ID, ImportStatus.SUCCESS,
+                "Import completed. Processed: " + BATCHES * RECORDS_PER_BATCH + ", Errors: 0");
+        verify(historyService, times(0)).updateStatus(eq(IMPORT_ID), eq(ImportStatus.FAILED), anyString());
+        assertThat(firstNode.isTracked(IMPORT_ID)).isFalse();
+        assertThat(secondNode.isTracked(IMPORT_ID)).isFalse();
+    }
+
+    @Test
+    void onlyOneNodeRemovesTheSameValue() throws Exception {
+        Cache<Long, ImportProgress> firstCache = firstManager.getCache(ImportProgressCacheConfig.IMPORT_PROGRESS_CACHE);
+        Cache<Long, ImportProgress> secondCache =
+                secondManager.getCache(ImportProgressCacheConfig.IMPORT_PROGRESS_CACHE);
+        ImportProgress completed = ImportProgress.streaming(IMPORT_ID).withDispatchCompleted(0, 0);
+
+        for (int round = 0; round < 50; round++) {
+            firstCache.put(IMPORT_ID, completed);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<Boolean> first = reporters.submit(() -> {
+                start.await();
+                return firstCache.remove(IMPORT_ID, completed);
+            });
+            Future<Boolean> second = reporters.submit(() -> {
+                start.await();
+                return secondCache.remove(IMPORT_ID, completed);
+            });
+            start.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS) ^ second.get(10, TimeUnit.SECONDS))
+                    .as("exactly one removal in round %d", round).isTrue();
+        }
+    }
+
+    @Test
+    void claimIsOnlyGrantedOnce() {
+        ImportProgress claim = firstNode.claim(IMPORT_ID);
+
+        assertThat(claim).isNotNull();
+        assertThat(secondNode.claim(IMPORT_ID)).isNull();
+        assertThat(secondNode.isTracked(IMPORT_ID)).isTrue();
+
+        secondNode.releaseClaim(claim);
+        assertThat(firstNode.isTracked(IMPORT_ID)).isFalse();
+    }
+
+    // every batch is reported twice, first in progress and then finished, alternating between nodes
+    private void reportAllBatches() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> reports = new ArrayList<>();
+        for (int i = 0; i < BATCHES; i++) {
+            long batchId = i + 1;
+            ImportProgressTrackingService node = i % 2 == 0 ? firstNode : secondNode;
+            reports.add(() -> {
+                start.await();
+                node.updateBatchProgress(IMPORT_ID, batchId, RECORDS_PER_BATCH / 2, 0, BatchStatus.PROCESSING);
+                node.updateBatchProgress(IMPORT_ID, batchId, RECORDS_PER_BATCH, 0, BatchStatus.SUCCESS);
+                return null;
+            });
+        }
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> report : reports) {
+            futures.add(reporters.submit(report));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private ImportProgressTrackingService trackingService(EmbeddedCacheManager manager) {
+        return new ImportProgressTrackingService(webSocketEventController, historyService,
+                manager.getCache(ImportProgressCacheConfig.IMPORT_PROGRESS_CACHE),
+                manager.getCache(ImportProgressCacheConfig.BATCH_PROGRESS_CACHE));
+    }
+
+    private static EmbeddedCacheManager startManager() {
+        return ImportProgressCacheConfig.createCacheManager(true, "import-progress-test", "jgroups-test.xml", 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvParserTest {
+
+    @Test
+    void quotedValuesStayText() throws IOException {
+        ObjectNode record = parse("name,code,flag", "\"a, \"\"b\"\"\" , \"42\",\"true\"");
+
+        assertThat(record.get("name").textValue()).isEqualTo("a, \"b\"");
+        assertThat(record.get("code").isTextual()).isTrue();
+        assertThat(record.get("code").textValue()).isEqualTo("42");
+        assertThat(record.get("flag").textValue()).isEqualTo("true");
+    }
+
+    @Test
+    void quotedEmptyValueIsKept() throws IOException {
+        ObjectNode record = parse("name,comment", "a,\"\"");
+
+        assertThat(record.get("comment").textValue()).isEmpty();
+    }
+
+    @Test
+    void dottedHeadersBuildNestedObjects() throws IOException {
+        ObjectNode record = parse("name,coordinates.x,coordinates.y,event.venue.name", "a,1,2.5,hall");
+
+        assertThat(record.get("coordinates").get("x").intValue()).isEqualTo(1);
+        assertThat(record.get("coordinates").get("y").doubleValue()).isEqualTo(2.5);
+        assertThat(record.get("event").get("venue").get("name").textValue()).isEqualTo("hall");
+    }
+
+    @Test
+    void unquotedValuesAreTyped() throws IOException {
+        ObjectNode record = parse("i,l,d,e,t,f,s",
+                "-12, 3000000000 ,0.25,1e3,true,false,abc");
+
+        assertThat(record.get("i").isInt()).isTrue();
+        assertThat(record.get("i").intValue()).isEqualTo(-12);
+        assertThat(record.get("l").isLong()).isTrue();
+        assertThat(record.get("l").longValue()).isEqualTo(3_000_000_000L);
+        assertThat(record.get("d").isDouble()).isTrue();
+        assertThat(record.get("e").doubleValue()).isEqualTo(1000.0);
+        assertThat(record.get("t").booleanValue()).isTrue();
+        assertThat(record.get("f").isBoolean()).isTrue();
+        assertThat(record.get("s").textValue()).isEqualTo("abc");
+    }
+
+    @Test
+    void emptyAndNullValuesAreLeftOut() throws IOException {
+        ObjectNode record = parse("a,b,c", " ,null,1");
+
+        assertThat(record.has("a")).isFalse();
+        assertThat(record.has("b")).isFalse();
+        assertThat(record.get("c").intValue()).isEqualTo(1);
+    }
+
+    @Test
+    void leadingZerosStayText() throws IOException {
+        ObjectNode record = parse("a,b,c,d,e", "0123,-007,0,0.5,00.5");
+
+        assertThat(record.get("a").textValue()).isEqualTo("0123");
+        assertThat(record.get("b").textValue()).isEqualTo("-007");
+        assertThat(record.get("c").isInt()).isTrue();
+        assertThat(record.get("d").isDouble()).isTrue();
+        assertThat(record.get("e").textValue()).isEqualTo("00.5");
+    }
+
+    @Test
+    void streamsChunksAndSkipsBlankLines() throws IOException {
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<JsonNode> records = new ArrayList<>();
+
+        int total = CsvParser.streamRecords(input("\uFEFFname\r\na\r\n\r\nb\n  \nc\nd\ne"), 2, chunk -> {
+            chunkSizes.add(chunk.size());
+            records.addAll(chunk);
+        });
+
+        assertThat(total).isEqualTo(5);
+        assertThat(chunkSizes).containsExactly(2, 2, 1);
+        assertThat(records).extracting(record -> record.get("name").textValue())
+                .containsExactly("a", "b", "c", "d", "e");
+    }
+
+    @Test
+    void fieldCountMismatchNamesTheLine() {
+        IOException e = assertThrows(IOException.class,
+                () -> CsvParser.streamRecords(input("a,b\n1,2\n\n3\n"), 10, chunk -> { }));
+
+        assertThat(e.getMessage()).isEqualTo("CSV line 4 has 1 fields, header has 2");
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        IOException e = assertThrows(IOException.class,
+                () -> CsvParser.streamRecords(input("a\n\"open\n"), 10, chunk -> { }));
+
+        assertThat(e.getMessage()).isEqualTo("CSV line 2: unterminated quoted value, records must fit on one line");
+    }
+
+    @Test
+    void textAfterQuotedValueIsRejected() {
+        IOException e = assertThrows(IOException.class,
+                () -> CsvParser.streamRecords(input("a,b\n\"x\"y,1\n"), 10, chunk -> { }));
+
+        assertThat(e.getMessage()).isEqualTo("CSV line 2: unexpected text after quoted value");
+    }
+
+    @Test
+    void headerColumnsNeedNames() {
+        IOException e = assertThrows(IOException.class, () -> CsvParser.parseHeader("a,,c"));
+
+        assertThat(e.getMessage()).isEqualTo("CSV header column 2 has no name");
+    }
+
+    @Test
+    void slicesNeedTheHeader() {
+        assertThrows(IOException.class, () -> CsvParser.parseRecords(input("1,2\n"), null));
+    }
+
+    private static ObjectNode parse(String header, String line) throws IOException {
+        return CsvParser.parseLine(line, CsvParser.parseHeader(header));
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
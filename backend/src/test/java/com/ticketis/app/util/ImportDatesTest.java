@@ -0,0 +1,59 @@
+package com.ticketis.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportDatesTest {
+
+    @Test
+    void parsesDateTimeWithSeconds() {
+        assertThat(ImportDates.parse("2024-01-01T10:15:30")).isEqualTo(at(2024, 1, 1, 10, 15, 30, 0));
+    }
+
+    @Test
+    void keepsFraction() {
+        assertThat(ImportDates.parse("2024-01-01T10:15:30.250")).isEqualTo(at(2024, 1, 1, 10, 15, 30, 250));
+    }
+
+    @Test
+    void parsesSpacedDateTime() {
+        assertThat(ImportDates.parse("2024-01-01 10:15:30")).isEqualTo(at(2024, 1, 1, 10, 15, 30, 0));
+    }
+
+    @Test
+    void parsesDate() {
+        assertThat(ImportDates.parse("2024-01-01")).isEqualTo(at(2024, 1, 1, 0, 0, 0, 0));
+    }
+
+    @Test
+    void ignoresZoneSuffix() {
+        assertThat(ImportDates.parse("2024-01-01T10:00Z")).isEqualTo(at(2024, 1, 1, 10, 0, 0, 0));
+        assertThat(ImportDates.parse("2024-01-01T10:00:00+03:00")).isEqualTo(at(2024, 1, 1, 10, 0, 0, 0));
+    }
+
+    @Test
+    void fallsBackToDateWhenTimeDoesNotParse() {
+        assertThat(ImportDates.parse("2024-01-01 10:00")).isEqualTo(at(2024, 1, 1, 0, 0, 0, 0));
+        assertThat(ImportDates.parse("2024-01-01T25:00:00")).isEqualTo(at(2024, 1, 1, 0, 0, 0, 0));
+        assertThat(ImportDates.parse("2024-01-01 noon")).isEqualTo(at(2024, 1, 1, 0, 0, 0, 0));
+    }
+
+    @Test
+    void rejectsTextWithoutDate() {
+        assertThat(ImportDates.parse(null)).isNull();
+        assertThat(ImportDates.parse("")).isNull();
+        assertThat(ImportDates.parse("tomorrow")).isNull();
+        assertThat(ImportDates.parse("2024-02-30")).isNull();
+        assertThat(ImportDates.parse("01.01.2024 10:00:00")).isNull();
+    }
+
+    private static Date at(int year, int month, int day, int hour, int minute, int second, int millis) {
+        LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000);
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,113 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ticketis.app.util.JsonParser.RecordRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineRangesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rangesCoverChunksOfRecordLines() throws IOException {
+        Path file = write("h\na\nb\n\nc\nd");
+        List<RecordRange> ranges = new ArrayList<>();
+
+        int total = LineRanges.scanRecordRanges(file, true, 2, ranges::add);
+
+        assertThat(total).isEqualTo(4);
+        assertThat(ranges).containsExactly(new RecordRange(0, 2, 2, 4), new RecordRange(2, 2, 7, 3));
+    }
+
+    @Test
+    void blankLinesDoNotCount() throws IOException {
+        Path file = write("a\r\n \t\r\n\r\nb\r\n\n");
+        List<RecordRange> ranges = new ArrayList<>();
+
+        int total = LineRanges.scanRecordRanges(file, false, 10, ranges::add);
+
+        assertThat(total).isEqualTo(2);
+        assertThat(ranges).containsExactly(new RecordRange(0, 2, 0, 12));
+    }
+
+    @Test
+    void headerOnlyFileHasNoRanges() throws IOException {
+        List<RecordRange> ranges = new ArrayList<>();
+
+        assertThat(LineRanges.scanRecordRanges(write("name,price\n"), true, 10, ranges::add)).isZero();
+        assertThat(ranges).isEmpty();
+    }
+
+    @Test
+    void slicesParseToTheFileRecords() throws IOException {
+        StringBuilder csv = new StringBuilder("name,coordinates.x\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append("\"ticket ").append(i).append(" ü\",").append(i).append('\n');
+            if (i % 7 == 0) {
+                csv.append('\n');
+            }
+        }
+        Path file = write(csv.toString());
+        byte[] content = Files.readAllBytes(file);
+        String header = LineRanges.readFirstLine(new ByteArrayInputStream(content));
+        List<JsonNode> records = new ArrayList<>();
+
+        LineRanges.scanRecordRanges(file, true, 4, range -> {
+            byte[] slice = Arrays.copyOfRange(content, (int) range.byteOffset(),
+                    (int) (range.byteOffset() + range.byteLength()));
+            try {
+                List<JsonNode> parsed = CsvParser.parseRecords(new ByteArrayInputStream(slice), header);
+                assertThat(parsed).hasSize(range.recordCount());
+                records.addAll(parsed);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertThat(records).hasSize(25);
+        for (int i = 0; i < 25; i++) {
+            assertThat(records.get(i).get("name").textValue()).isEqualTo("ticket " + i + " ü");
+            assertThat(records.get(i).get("coordinates").get("x").intValue()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void estimateIsExactWithinTheSample() throws IOException {
+        assertThat(LineRanges.estimateRecordCount(write("h\na\n\nb\nc\n"), true, 10)).isEqualTo(3);
+    }
+
+    @Test
+    void estimateExtrapolatesPastTheSample() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("line\n");
+        }
+
+        assertThat(LineRanges.estimateRecordCount(write(lines.toString()), false, 100)).isEqualTo(1000);
+    }
+
+    @Test
+    void firstLineHasNoByteOrderMark() throws IOException {
+        byte[] content = "\uFEFFname,price\nx,1\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(LineRanges.readFirstLine(new ByteArrayInputStream(content))).isEqualTo("name,price");
+        assertThat(LineRanges.readFirstLine(new ByteArrayInputStream(new byte[0]))).isNull();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("records.csv"), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedLineParserTest {
+
+    private static final MappedLineParser.LineDecoder TEXT =
+            (line, length) -> TextNode.valueOf(new String(line, 0, length, StandardCharsets.UTF_8));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parsesLinesInOrderWithRecordIndexes() throws IOException {
+        List<String> lines = lines(20);
+        Path file = write(String.join("\n", lines) + "\n");
+
+        ConcurrentSkipListMap<Integer, List<JsonNode>> chunks = new ConcurrentSkipListMap<>();
+        int total = MappedLineParser.parse(file, 0, 1, 6, executor, TEXT, chunks::put);
+
+        assertThat(total).isEqualTo(20);
+        assertThat(chunks.keySet()).containsExactly(0, 6, 12, 18);
+        assertThat(texts(chunks)).isEqualTo(lines);
+    }
+
+    @Test
+    void skipsBlankLinesCarriageReturnsAndByteOrderMark() throws IOException {
+        Path file = write("\uFEFFa\r\n\r\n  \n\tb\r\n\nc");
+
+        ConcurrentSkipListMap<Integer, List<JsonNode>> chunks = new ConcurrentSkipListMap<>();
+        int total = MappedLineParser.parse(file, 0, 1, 10, executor, TEXT, chunks::put);
+
+        assertThat(total).isEqualTo(3);
+        assertThat(texts(chunks)).containsExactly("a", "\tb", "c");
+    }
+
+    @Test
+    void startsAfterTheHeaderRow() throws IOException {
+        Path file = write("name\nx\ny\n");
+
+        ConcurrentSkipListMap<Integer, List<JsonNode>> chunks = new ConcurrentSkipListMap<>();
+        int total = MappedLineParser.parse(file, MappedLineParser.skipFirstLine(file), 1, 10, executor, TEXT,
+                chunks::put);
+
+        assertThat(total).isEqualTo(2);
+        assertThat(texts(chunks)).containsExactly("x", "y");
+    }
+
+    @Test
+    void threadRangesSplitAtLineBoundaries() throws IOException {
+        // large enough for four ranges of at least 64 KB
+        List<String> lines = lines(12_000);
+        Path file = write(String.join("\n", lines));
+
+        ConcurrentSkipListMap<Integer, List<JsonNode>> chunks = new ConcurrentSkipListMap<>();
+        int total = MappedLineParser.parse(file, 0, 4, 1000, executor, TEXT, chunks::put);
+
+        assertThat(total).isEqualTo(lines.size());
+        assertThat(texts(chunks)).isEqualTo(lines);
+        int expectedFirst = 0;
+        for (var chunk : chunks.entrySet()) {
+            assertThat(chunk.getKey()).isEqualTo(expectedFirst);
+            expectedFirst += chunk.getValue().size();
+        }
+    }
+
+    @Test
+    void multiByteCharactersStraddlingWindowBoundaries() throws IOException {
+        List<String> lines = lines(12_000);
+        Path file = write(String.join("\r\n", lines) + "\r\n");
+
+        // an odd window size puts most mapping boundaries inside a multi-byte character
+        for (long window : new long[] { 97, 1001, 4099 }) {
+            ConcurrentSkipListMap<Integer, List<JsonNode>> chunks = new ConcurrentSkipListMap<>();
+            int total = MappedLineParser.parse(file, 0, 4, 777, executor, TEXT, chunks::put, window);
+
+            assertThat(total).as("window %d", window).isEqualTo(lines.size());
+            assertThat(texts(chunks)).as("window %d", window).isEqualTo(lines);
+        }
+    }
+
+    @Test
+    void lineLongerThanWindowIsRejected() throws IOException {
+        Path file = write("short\n" + "x".repeat(200) + "\nshort\n");
+
+        IOException e = assertThrows(IOException.class,
+                () -> MappedLineParser.parse(file, 0, 1, 10, executor, TEXT, (first, records) -> { }, 64));
+
+        assertThat(e.getMessage()).startsWith("Line longer than 64 bytes");
+    }
+
+    @Test
+    void emptyFileHasNoRecords() throws IOException {
+        Path file = write("");
+
+        List<JsonNode> records = new ArrayList<>();
+        assertThat(MappedLineParser.parse(file, 0, 4, 10, executor, TEXT, (first, chunk) -> records.addAll(chunk)))
+                .isZero();
+        assertThat(records).isEmpty();
+    }
+
+    // two, three and four byte UTF-8 sequences in every line
+    private static List<String> lines(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add("record " + i + " ü€🎫 " + "é".repeat(i % 5));
+        }
+        return lines;
+    }
+
+    private static List<String> texts(ConcurrentSkipListMap<Integer, List<JsonNode>> chunks) {
+        List<String> texts = new ArrayList<>();
+        chunks.values().forEach(chunk -> chunk.forEach(record -> texts.add(record.textValue())));
+        return texts;
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("records.ndjson"), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+package com.ticketis.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wall time of reading a whole NDJSON upload with {@link ImportFileFormat#parseFile} on one thread
+ * against {@link ImportFileFormat#parallelStreamRecords} on mapped ranges, on a generated file of
+ * ticket records. Both keep every parsed record until the pass ends. Not run by the build, start it
+ * with
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat classpath.txt) \
+ *     com.ticketis.app.util.ParallelParseBenchmark [records] [rounds]
+ * </pre>
+ * after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=classpath.txt}.
+ */
+public final class ParallelParseBenchmark {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private ParallelParseBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] parallelisms = Arrays.stream(new int[] { 1, 2, 4, processors }).distinct().sorted().toArray();
+
+        Path file = Files.createTempFile("tickets", ".ndjson");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelisms[parallelisms.length - 1]);
+        try {
+            generate(file, count);
+            System.out.printf("%d records, %d MB, %d processors, median of %d rounds%n", count,
+                    Files.size(file) >> 20, processors, rounds);
+
+            report("parseFile", file, count, rounds, () -> ImportFileFormat.NDJSON.parseFile(file).size());
+            for (int parallelism : parallelisms) {
+                report("parallelStreamRecords x" + parallelism, file, count, rounds, () -> {
+                    Queue<List<JsonNode>> chunks = new ConcurrentLinkedQueue<>();
+                    return ImportFileFormat.NDJSON.parallelStreamRecords(file, parallelism, CHUNK_SIZE, executor,
+                            (first, records) -> chunks.add(records));
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void report(String name, Path file, int count, int rounds, Pass pass) throws IOException {
+        // one untimed pass to warm up the parser
+        pass.run();
+        long[] millis = new long[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long started = System.nanoTime();
+            int records = pass.run();
+            millis[round] = (System.nanoTime() - started) / 1_000_000;
+            if (records != count) {
+                throw new IllegalStateException(name + " read " + records + " of " + count + " records");
+            }
+        }
+        Arrays.sort(millis);
+        long median = Math.max(1, millis[rounds / 2]);
+        System.out.printf("%-26s %6d ms %10d records/s%n", name, median, count * 1000L / median);
+    }
+
+    private static void generate(Path file, int count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(String.format("{\"name\":\"Ticket %d\",\"price\":%d,\"number\":%d.5,\"refundable\":true,"
+                        + "\"type\":\"VIP\",\"coordinates\":{\"x\":%d,\"y\":%d.25},"
+                        + "\"person\":{\"eyeColor\":\"GREEN\",\"hairColor\":\"BLUE\",\"passportID\":\"P%d\"},"
+                        + "\"event\":{\"name\":\"Event %d\",\"description\":\"Live\"},"
+                        + "\"venue\":{\"name\":\"Venue %d\",\"capacity\":%d,\"type\":\"LOFT\"}}%n",
+                        i, 100 + i % 900, i % 50, i % 200, i % 30, i, i % 20, i % 20, 100 + i % 400));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Pass {
+        int run() throws IOException;
+    }
+}
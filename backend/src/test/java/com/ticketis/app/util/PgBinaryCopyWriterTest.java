@@ -0,0 +1,167 @@
+package com.ticketis.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgBinaryCopyWriterTest {
+
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+    @Test
+    void emptyCopyHasHeaderAndTrailer() throws IOException {
+        ByteBuffer copy = write(writer -> { });
+
+        assertHeader(copy);
+        assertThat(copy.getShort()).isEqualTo((short) -1);
+        assertThat(copy.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void nullIsMinusOneLengthWithoutData() throws IOException {
+        ByteBuffer copy = write(writer -> {
+            writer.startRow(7);
+            writer.writeInt(null);
+            writer.writeLong(null);
+            writer.writeFloat(null);
+            writer.writeDouble(null);
+            writer.writeBoolean(null);
+            writer.writeText(null);
+            writer.writeTimestamp(null);
+        });
+
+        assertHeader(copy);
+        assertThat(copy.getShort()).isEqualTo((short) 7);
+        for (int i = 0; i < 7; i++) {
+            assertThat(copy.getInt()).isEqualTo(-1);
+        }
+        assertThat(copy.getShort()).isEqualTo((short) -1);
+        assertThat(copy.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void textIsUtf8WithByteLength() throws IOException {
+        ByteBuffer copy = row(2, writer -> {
+            writer.writeText("Bilet ü€🎫");
+            writer.writeText("");
+        });
+
+        byte[] expected = "Bilet ü€🎫".getBytes(StandardCharsets.UTF_8);
+        assertThat(copy.getInt()).isEqualTo(expected.length).isEqualTo(15);
+        byte[] text = new byte[expected.length];
+        copy.get(text);
+        assertThat(text).isEqualTo(expected);
+        assertThat(copy.getInt()).isZero();
+        assertTrailer(copy);
+    }
+
+    @Test
+    void integersAreBigEndian() throws IOException {
+        ByteBuffer copy = row(3, writer -> {
+            writer.writeInt(-2);
+            writer.writeLong(0x0102030405060708L);
+            writer.writeLong(Long.MIN_VALUE);
+        });
+
+        assertThat(copy.getInt()).isEqualTo(4);
+        assertThat(copy.getInt()).isEqualTo(-2);
+        assertThat(copy.getInt()).isEqualTo(8);
+        byte[] int8 = new byte[8];
+        copy.get(int8);
+        assertThat(int8).isEqualTo(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getLong()).isEqualTo(Long.MIN_VALUE);
+        assertTrailer(copy);
+    }
+
+    @Test
+    void floatsAreIeee754() throws IOException {
+        ByteBuffer copy = row(5, writer -> {
+            writer.writeDouble(-1.5);
+            writer.writeDouble(Double.NaN);
+            writer.writeFloat(0.25f);
+            writer.writeBoolean(true);
+            writer.writeBoolean(false);
+        });
+
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getLong()).isEqualTo(0xBFF8000000000000L);
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(Double.isNaN(copy.getDouble())).isTrue();
+        assertThat(copy.getInt()).isEqualTo(4);
+        assertThat(copy.getInt()).isEqualTo(0x3E800000);
+        assertThat(copy.getInt()).isEqualTo(1);
+        assertThat(copy.get()).isEqualTo((byte) 1);
+        assertThat(copy.getInt()).isEqualTo(1);
+        assertThat(copy.get()).isEqualTo((byte) 0);
+        assertTrailer(copy);
+    }
+
+    @Test
+    void timestampsAreMicrosecondsSince2000InServerZone() throws IOException {
+        ByteBuffer copy = row(3, writer -> {
+            writer.writeTimestamp(date(LocalDateTime.of(2000, 1, 1, 0, 0)));
+            writer.writeTimestamp(date(LocalDateTime.of(2024, 3, 15, 12, 30, 45, 123_000_000)));
+            writer.writeTimestamp(date(LocalDateTime.of(1999, 12, 31, 23, 59, 59)));
+        });
+
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getLong()).isZero();
+        assertThat(copy.getInt()).isEqualTo(8);
+        // 8840 days to 2024-03-15, then 12:30:45.123
+        assertThat(copy.getLong()).isEqualTo(8840L * 86_400_000_000L + 45_045_123_000L);
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getLong()).isEqualTo(-1_000_000L);
+        assertTrailer(copy);
+    }
+
+    private static Date date(LocalDateTime local) {
+        return Date.from(local.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // a copy of one row positioned at its first field, after checking the header and the field count
+    private static ByteBuffer row(int fieldCount, RowWriter fields) throws IOException {
+        ByteBuffer copy = write(writer -> {
+            writer.startRow(fieldCount);
+            fields.write(writer);
+        });
+        assertHeader(copy);
+        assertThat(copy.getShort()).isEqualTo((short) fieldCount);
+        return copy;
+    }
+
+    private static ByteBuffer write(RowWriter rows) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(target)) {
+            rows.write(writer);
+        }
+        return ByteBuffer.wrap(target.toByteArray());
+    }
+
+    private static void assertHeader(ByteBuffer copy) {
+        byte[] signature = new byte[SIGNATURE.length];
+        copy.get(signature);
+        assertThat(Arrays.equals(signature, SIGNATURE)).as("signature").isTrue();
+        assertThat(copy.getInt()).as("flags").isZero();
+        assertThat(copy.getInt()).as("header extension").isZero();
+    }
+
+    private static void assertTrailer(ByteBuffer copy) {
+        assertThat(copy.getShort()).isEqualTo((short) -1);
+        assertThat(copy.hasRemaining()).isFalse();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PgBinaryCopyWriter writer) throws IOException;
+    }
+}
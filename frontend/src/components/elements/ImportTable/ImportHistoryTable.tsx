@@ -167,6 +167,12 @@ export const ImportHistoryTable = ({ imports, getBatches, isLoading, refreshBatc
                                                     {renderDescriptionCell(renderCell(row, col.field))}
                                                 </td>
                                             );
+                                        } else if (col.field === "importStrategy") {
+                                            return (
+                                                <td key={col.field} title={row.planDetails}>
+                                                    {renderCell(row, col.field)}
+                                                </td>
+                                            );
                                         } else {
                                             return <td key={col.field}>{renderCell(row, col.field)}</td>;
                                         }
@@ -48,7 +48,7 @@ export const ImportHistoryPage = () => {
 
         try {
             const response = await uploadImportFile(file);
-            setUploadSuccess(`File "${file.name}" uploaded successfully. Import started.`);
+            setUploadSuccess(`File "${file.name}" uploaded. Import queued.`);
             if (fileInputRef.current) {
                 fileInputRef.current.value = '';
             }
@@ -80,7 +80,7 @@ export const ImportHistoryPage = () => {
                 <input
                     ref={fileInputRef}
                     type="file"
-                    accept=".json"
+                    accept=".json,.ndjson,.jsonl,.csv"
                     onChange={handleFileSelect}
                     style={{ display: 'none' }}
                 />
@@ -6,4 +6,6 @@ export interface ImportHistoryItem {
     importedAt: string;
     importStatus: ImportStatus;
     resultDescription: string;
+    importStrategy?: string;
+    planDetails?: string;
 }
\ No newline at end of file
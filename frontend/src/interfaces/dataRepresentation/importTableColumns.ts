@@ -7,5 +7,6 @@ export const importTableColumns: Column<ImportHistoryItem>[] = [
     { label: "File", field: "filename" },
     { label: "Imported At", field: "importedAt" },
     { label: "Status", field: "importStatus" },
+    { label: "Plan", field: "importStrategy" },
     { label: "Description", field: "resultDescription" },
 ];
\ No newline at end of file
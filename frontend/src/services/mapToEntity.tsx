@@ -98,6 +98,8 @@ export const mapImportHistoryItemToEntity = (importHistoryItem: ImportHistoryIte
   data: {
     importedAt: importHistoryItem.importedAt,
     importStatus: importHistoryItem.importStatus,
+    importStrategy: importHistoryItem.importStrategy,
+    planDetails: importHistoryItem.planDetails,
   },
 });
 
@@ -109,6 +111,8 @@ export const mapImportBatchoEntity = (importHistoryItem: ImportHistoryItem): Ent
   data: {
     importedAt: importHistoryItem.importedAt,
     importStatus: importHistoryItem.importStatus,
+    importStrategy: importHistoryItem.importStrategy,
+    planDetails: importHistoryItem.planDetails,
   },
 });
 